@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Time-to-first-request and resident memory of the regular build vs the fast-startup build
+# (AOT + CDS + fast-startup profile). Build first with:
+#
+#   mvn -Pfast-startup package -DskipTests
+#
+# The app needs its database as usual (MYSQLHOST, MYSQLPORT, MYSQL_DATABASE, MYSQLUSER,
+# MYSQL_ROOT_PASSWORD). The schema must already exist, since the fast-startup profile only
+# validates it. Extra arguments are passed to both runs.
+#
+#   RUNS=10 scripts/startup-benchmark.sh --server.address=127.0.0.1
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+URL="http://localhost:${PORT}/api/data/budget"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="backend-0.0.1-SNAPSHOT.jar"
+LOG="${TMPDIR:-/tmp}/startup-benchmark.log"
+
+if [[ ! -f "$ROOT/target/fast-startup/application.jsa" ]]; then
+    echo "No CDS archive found; run 'mvn -Pfast-startup package -DskipTests' first" >&2
+    exit 1
+fi
+
+# Launches the app, waits for the first HTTP response (any status) and prints "<millis> <rss-kb>"
+measure_once() {
+    local workdir=$1
+    shift
+    local start end code pid rss
+    start=$(date +%s%N)
+    (cd "$workdir" && exec "$@" --server.port="$PORT" >"$LOG" 2>&1) &
+    pid=$!
+    while true; do
+        code=$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)
+        [[ "$code" != "000" ]] && break
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited before serving a request, see $LOG" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    end=$(date +%s%N)
+    rss=$(awk '/^VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$(( (end - start) / 1000000 )) $rss"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+run() {
+    local label=$1
+    shift
+    local times=() rss=() result
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure_once "$@")
+        times+=("${result% *}")
+        rss+=("${result#* }")
+        echo "  $label run $i: ${result% *} ms, $(( ${result#* } / 1024 )) MB RSS"
+    done
+    printf '%-14s first request after %s ms (median), RSS %s MB (median)\n' "$label" \
+        "$(printf '%s\n' "${times[@]}" | median)" \
+        "$(( $(printf '%s\n' "${rss[@]}" | median | cut -d. -f1) / 1024 ))"
+}
+
+echo "Regular build:"
+run "regular" "$ROOT/target" java -jar "$JAR" "$@"
+
+echo "Fast-startup build:"
+run "fast-startup" "$ROOT/target/fast-startup" \
+    java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+    -jar "$JAR" --spring.profiles.active=fast-startup "$@"
@@ -4,12 +4,28 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 // --- 1. ADD THIS IMPORT ---
 import org.springframework.boot.autoconfigure.h2.H2ConsoleAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.client.HttpClientAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.client.RestClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
 
 // --- 2. MODIFY THIS LINE ---
-@SpringBootApplication(exclude = {H2ConsoleAutoConfiguration.class})
+// Besides the H2 console, skip auto-configurations this app never uses (outbound HTTP clients,
+// websockets, schema.sql init, the default in-memory user store) to cut startup work.
+@SpringBootApplication(exclude = {
+        H2ConsoleAutoConfiguration.class,
+        HttpClientAutoConfiguration.class,
+        RestClientAutoConfiguration.class,
+        RestTemplateAutoConfiguration.class,
+        SqlInitializationAutoConfiguration.class,
+        UserDetailsServiceAutoConfiguration.class,
+        WebSocketServletAutoConfiguration.class
+})
 // ---
 public class BackendApplication {
 
@@ -17,4 +33,4 @@ public class BackendApplication {
         SpringApplication.run(BackendApplication.class, args);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package com.budgetmanager.backend.analytics;
+
+/**
+ * Aggregations over {@link ExpenseColumns}. Each method is a single pass over the arrays; the
+ * only allocations are the result arrays, sized by category or bucket count, never by rows.
+ */
+public final class ExpenseAggregator {
+
+    private ExpenseAggregator() {
+    }
+
+    public static long total(ExpenseColumns columns) {
+        long total = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            total += columns.amount(row);
+        }
+        return total;
+    }
+
+    // Indexed by category code
+    public static long[] totalsByCategory(ExpenseColumns columns) {
+        long[] totals = new long[columns.categoryCount()];
+        for (int row = 0; row < columns.size(); row++) {
+            totals[columns.category(row)] += columns.amount(row);
+        }
+        return totals;
+    }
+
+    // Category codes of the n largest totals, largest first
+    public static int[] topCategories(long[] totals, int n) {
+        int k = Math.min(n, totals.length);
+        if (k <= 0) {
+            return new int[0];
+        }
+
+        // Min-heap of the k best codes seen so far; the root is the one to evict
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int code = 0; code < totals.length; code++) {
+            if (heapSize < k) {
+                heap[heapSize] = code;
+                siftUp(heap, heapSize++, totals);
+            } else if (ranksAbove(code, heap[0], totals)) {
+                heap[0] = code;
+                siftDown(heap, heapSize, totals);
+            }
+        }
+
+        int[] top = new int[k];
+        for (int i = k - 1; i >= 0; i--) {
+            top[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, totals);
+        }
+        return top;
+    }
+
+    /**
+     * Counts of expenses per amount range: bucket i holds amounts in
+     * [i * bucketWidth, (i + 1) * bucketWidth), and the last bucket also takes everything above.
+     * Refunds (negative amounts) land in bucket 0.
+     */
+    public static long[] histogram(ExpenseColumns columns, long bucketWidth, int buckets) {
+        if (bucketWidth <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("bucketWidth and buckets must be positive");
+        }
+        long[] counts = new long[buckets];
+        int last = buckets - 1;
+        for (int row = 0; row < columns.size(); row++) {
+            long bucket = Math.max(0, columns.amount(row)) / bucketWidth;
+            counts[bucket < last ? (int) bucket : last]++;
+        }
+        return counts;
+    }
+
+    // Higher total first; ties go to the lower code so results are stable
+    private static boolean ranksAbove(int a, int b, long[] totals) {
+        return totals[a] > totals[b] || (totals[a] == totals[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, long[] totals) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksAbove(heap[parent], heap[i], totals)) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, long[] totals) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && ranksAbove(heap[child], heap[child + 1], totals)) {
+                child++;
+            }
+            if (!ranksAbove(heap[i], heap[child], totals)) {
+                return;
+            }
+            swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
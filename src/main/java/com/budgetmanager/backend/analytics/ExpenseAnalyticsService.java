@@ -0,0 +1,77 @@
+package com.budgetmanager.backend.analytics;
+
+import com.budgetmanager.backend.dto.DashboardDto;
+import com.budgetmanager.backend.dto.ExpenseAnalyticsDto;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.service.ExpenseService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class ExpenseAnalyticsService {
+
+    private final ExpenseService expenseService;
+
+    public ExpenseAnalyticsService(ExpenseService expenseService) {
+        this.expenseService = expenseService;
+    }
+
+    // Total spent per category, ordered by category name
+    public Map<String, Double> categoryTotals(User user) {
+        return toMajor(expenseService.loadTotals(user).byCategory());
+    }
+
+    // Count, total and per-category totals from one load, for the dashboard
+    public DashboardDto.Summary dashboardSummary(User user) {
+        ExpenseTotals totals = expenseService.loadTotals(user);
+        long total = totals.totalMinor();
+        return DashboardDto.Summary.builder()
+                .count(totals.count())
+                .total(MinorUnitsConverter.toMajor(total))
+                .remaining(MinorUnitsConverter.toMajor(MinorUnitsConverter.toMinor(user.getBudget()) - total))
+                .categoryTotals(toMajor(totals.byCategory()))
+                .build();
+    }
+
+    public ExpenseAnalyticsDto summarize(User user, int top, double bucketWidth, int buckets) {
+        long bucketWidthMinor = MinorUnitsConverter.toMinor(bucketWidth);
+        if (top < 0 || bucketWidthMinor <= 0 || buckets <= 0 || buckets > 1000) {
+            throw new IllegalArgumentException("top must be >= 0, bucketWidth > 0 and buckets between 1 and 1000");
+        }
+
+        ExpenseColumns columns = expenseService.loadColumns(user);
+        long[] totals = ExpenseAggregator.totalsByCategory(columns);
+        List<String> topCategories = new ArrayList<>();
+        for (int code : ExpenseAggregator.topCategories(totals, top)) {
+            topCategories.add(columns.categoryName(code));
+        }
+
+        return ExpenseAnalyticsDto.builder()
+                .count(columns.size())
+                .total(MinorUnitsConverter.toMajor(ExpenseAggregator.total(columns)))
+                .categoryTotals(categoryTotals(columns, totals))
+                .topCategories(topCategories)
+                .bucketWidth(MinorUnitsConverter.toMajor(bucketWidthMinor))
+                .histogram(ExpenseAggregator.histogram(columns, bucketWidthMinor, buckets))
+                .build();
+    }
+
+    private static Map<String, Double> toMajor(Map<String, Long> totalsMinor) {
+        Map<String, Double> byName = new TreeMap<>();
+        totalsMinor.forEach((name, total) -> byName.put(name, MinorUnitsConverter.toMajor(total)));
+        return byName;
+    }
+
+    private static Map<String, Double> categoryTotals(ExpenseColumns columns, long[] totals) {
+        Map<String, Double> byName = new TreeMap<>();
+        for (int code = 0; code < totals.length; code++) {
+            byName.put(columns.categoryName(code), MinorUnitsConverter.toMajor(totals[code]));
+        }
+        return byName;
+    }
+}
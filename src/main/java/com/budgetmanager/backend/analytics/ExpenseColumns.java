@@ -0,0 +1,98 @@
+package com.budgetmanager.backend.analytics;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * One user's expenses as parallel primitive columns: amounts in minor units, and category
+ * codes numbered 0..categoryCount()-1 that index {@link #categoryName(int)}. Built once per
+ * request and then scanned by {@link ExpenseAggregator} without creating per-row objects.
+ */
+public final class ExpenseColumns {
+
+    private final String[] categoryNames;
+    private final int[] categories;
+    private final long[] amounts;
+    private final int size;
+
+    private ExpenseColumns(String[] categoryNames, int[] categories, long[] amounts, int size) {
+        this.categoryNames = categoryNames;
+        this.categories = categories;
+        this.amounts = amounts;
+        this.size = size;
+    }
+
+    // Fallback for stores that hand back entities (the sharded store keeps category strings)
+    public static ExpenseColumns fromExpenses(List<Expense> expenses) {
+        Map<String, Integer> codes = new HashMap<>();
+        Builder builder = new Builder(expenses.size());
+        for (Expense expense : expenses) {
+            int code = codes.computeIfAbsent(expense.getCategory(), name -> codes.size());
+            builder.add(code, MinorUnitsConverter.toMinor(expense.getAmount()));
+        }
+        String[] names = new String[codes.size()];
+        codes.forEach((name, code) -> names[code] = name);
+        return builder.build(names);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int categoryCount() {
+        return categoryNames.length;
+    }
+
+    public String categoryName(int code) {
+        return categoryNames[code];
+    }
+
+    public int category(int row) {
+        return categories[row];
+    }
+
+    public long amount(int row) {
+        return amounts[row];
+    }
+
+    // Appends rows into growing arrays; category codes must be below the final name count
+    public static final class Builder {
+
+        private int[] categories;
+        private long[] amounts;
+        private int size;
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            categories = new int[capacity];
+            amounts = new long[capacity];
+        }
+
+        public void add(int category, long amountMinor) {
+            if (size == amounts.length) {
+                int capacity = size + (size >> 1);
+                categories = Arrays.copyOf(categories, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            categories[size] = category;
+            amounts[size] = amountMinor;
+            size++;
+        }
+
+        public void recodeCategories(IntUnaryOperator recode) {
+            for (int row = 0; row < size; row++) {
+                categories[row] = recode.applyAsInt(categories[row]);
+            }
+        }
+
+        public ExpenseColumns build(String[] categoryNames) {
+            return new ExpenseColumns(categoryNames, categories, amounts, size);
+        }
+    }
+}
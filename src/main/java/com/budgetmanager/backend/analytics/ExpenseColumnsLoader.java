@@ -0,0 +1,52 @@
+package com.budgetmanager.backend.analytics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a user's expenses straight into {@link ExpenseColumns}, skipping entity hydration.
+ * Both queries are answered from indexes: the category dictionary by its unique key and the
+ * rows by idx_expense_user_category_amount.
+ */
+@Component
+public class ExpenseColumnsLoader {
+
+    static final String SELECT_CATEGORIES = "SELECT id, name FROM expense_category WHERE user_id = ? ORDER BY id";
+    static final String SELECT_COLUMNS = "SELECT category_id, amount_minor FROM expense WHERE user_id = ?";
+    static final String SELECT_ARCHIVED_SEGMENTS = "SELECT archived_segments FROM _user WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExpenseColumnsLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public ExpenseColumns load(long userId) {
+        ExpenseColumns.Builder builder = new ExpenseColumns.Builder(0);
+        jdbcTemplate.query(SELECT_COLUMNS, rs -> {
+            builder.add(rs.getInt(1), rs.getLong(2));
+        }, userId);
+
+        // Read after the rows so every category they reference is present (categories are never deleted)
+        List<Integer> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        jdbcTemplate.query(SELECT_CATEGORIES, rs -> {
+            ids.add(rs.getInt(1));
+            names.add(rs.getString(2));
+        }, userId);
+
+        // Ids arrive sorted, so a category's code is the position of its id
+        int[] sortedIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        builder.recodeCategories(id -> Arrays.binarySearch(sortedIds, id));
+        return builder.build(names.toArray(String[]::new));
+    }
+
+    // The user's current archive segment count; the archiver raises it as it deletes live rows
+    public int archivedSegments(long userId) {
+        return jdbcTemplate.queryForObject(SELECT_ARCHIVED_SEGMENTS, Integer.class, userId);
+    }
+}
@@ -0,0 +1,47 @@
+package com.budgetmanager.backend.analytics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Count, total and per-category totals (minor units, by category name) of a user's expenses.
+ * Live rows are summed from {@link ExpenseColumns}; archived segments add their header
+ * summaries, so totals never need the archived rows themselves.
+ */
+public final class ExpenseTotals {
+
+    private final Map<String, Long> byCategory = new TreeMap<>();
+    private int count;
+    private long totalMinor;
+
+    public static ExpenseTotals of(ExpenseColumns columns) {
+        ExpenseTotals totals = new ExpenseTotals();
+        long[] byCode = ExpenseAggregator.totalsByCategory(columns);
+        for (int code = 0; code < byCode.length; code++) {
+            totals.byCategory.merge(columns.categoryName(code), byCode[code], Long::sum);
+        }
+        totals.count = columns.size();
+        totals.totalMinor = ExpenseAggregator.total(columns);
+        return totals;
+    }
+
+    public void add(String category, long categoryTotalMinor, int rows) {
+        byCategory.merge(category, categoryTotalMinor, Long::sum);
+        count += rows;
+        totalMinor += categoryTotalMinor;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long totalMinor() {
+        return totalMinor;
+    }
+
+    // Ordered by category name
+    public Map<String, Long> byCategory() {
+        return Collections.unmodifiableMap(byCategory);
+    }
+}
@@ -0,0 +1,138 @@
+package com.budgetmanager.backend.archive;
+
+import com.budgetmanager.backend.analytics.ExpenseColumns;
+import com.budgetmanager.backend.analytics.ExpenseTotals;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Archived expenses: {@link ExpenseSegment} files under app.archive.dir, in
+ * &lt;dir&gt;/&lt;userId % 1000&gt;/&lt;userId&gt;/segment-&lt;n&gt;.seg. A user's segments are 1..n
+ * for n = _user.archived_segments. The archiver raises n in the same transaction that deletes
+ * the archived rows, so every row is either live or in a counted segment, and a segment left
+ * behind by a failed run is never read. That holds only for an n and live rows read together:
+ * from one snapshot, or with n read again after the live rows and found unchanged.
+ *
+ * A counted segment is never rewritten, so opened segments are kept, up to max-open-segments
+ * of them, rather than mapped again on every request. Totals read only the headers.
+ */
+@Component
+public class ExpenseArchive {
+
+    // A user's live rows with category names; callers append any further conditions and the order
+    static final String SELECT_ROWS = "SELECT e.id, e.created_at, e.name, c.name, e.amount_minor FROM expense e "
+            + "JOIN expense_category c ON c.id = e.category_id WHERE e.user_id = ?";
+
+    private static final int EVICTION_BATCH_DIVISOR = 100;
+
+    private final Path root;
+    private final int maxOpenSegments;
+    private final ConcurrentHashMap<SegmentKey, ExpenseSegment> opened = new ConcurrentHashMap<>();
+
+    private record SegmentKey(long userId, int segment) {}
+
+    public ExpenseArchive(@Value("${app.archive.dir:./expense_archive/}") String dir,
+                          @Value("${app.archive.max-open-segments:1000}") int maxOpenSegments) {
+        this.root = Path.of(dir).toAbsolutePath().normalize();
+        this.maxOpenSegments = maxOpenSegments;
+    }
+
+    public Path segmentPath(long userId, int segment) {
+        return root.resolve(Long.toString(userId % 1000)).resolve(Long.toString(userId))
+                .resolve("segment-" + segment + ".seg");
+    }
+
+    public ExpenseSegment open(long userId, int segment) {
+        SegmentKey key = new SegmentKey(userId, segment);
+        ExpenseSegment cached = opened.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        ExpenseSegment loaded;
+        try {
+            loaded = ExpenseSegment.open(segmentPath(userId, segment));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive segment " + segment + " of user " + userId, e);
+        }
+        if (opened.size() >= maxOpenSegments) {
+            evictSome();
+        }
+        ExpenseSegment raced = opened.putIfAbsent(key, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    // The segment's per-category summaries, read from its header without mapping the file
+    public List<ExpenseSegment.CategorySummary> categories(long userId, int segment) {
+        try {
+            return ExpenseSegment.readCategories(segmentPath(userId, segment));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive segment " + segment + " of user " + userId, e);
+        }
+    }
+
+    // Adds the header summaries of segments 1..segments; no column is inflated
+    public void addArchivedTotals(long userId, int segments, ExpenseTotals totals) {
+        for (int segment = 1; segment <= segments; segment++) {
+            for (ExpenseSegment.CategorySummary category : categories(userId, segment)) {
+                totals.add(category.name(), category.totalMinor(), category.rows());
+            }
+        }
+    }
+
+    // The live columns followed by the rows of segments 1..segments
+    public ExpenseColumns withArchived(long userId, int segments, ExpenseColumns live) {
+        if (segments == 0) {
+            return live;
+        }
+        List<ExpenseSegment> opened = new ArrayList<>(segments);
+        int rows = live.size();
+        for (int segment = 1; segment <= segments; segment++) {
+            ExpenseSegment archived = open(userId, segment);
+            opened.add(archived);
+            rows += archived.rows();
+        }
+
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int code = 0; code < live.categoryCount(); code++) {
+            codes.put(live.categoryName(code), code);
+            names.add(live.categoryName(code));
+        }
+        ExpenseColumns.Builder builder = new ExpenseColumns.Builder(rows);
+        for (int row = 0; row < live.size(); row++) {
+            builder.add(live.category(row), live.amount(row));
+        }
+        for (ExpenseSegment archived : opened) {
+            List<ExpenseSegment.CategorySummary> categories = archived.categories();
+            int[] remap = new int[categories.size()];
+            for (int i = 0; i < remap.length; i++) {
+                remap[i] = codes.computeIfAbsent(categories.get(i).name(), name -> {
+                    names.add(name);
+                    return names.size() - 1;
+                });
+            }
+            archived.readColumns(builder, remap);
+        }
+        return builder.build(names.toArray(String[]::new));
+    }
+
+    // Drops a small batch of arbitrary segments; their mappings go once nothing still reads them
+    private void evictSome() {
+        int batch = Math.max(1, maxOpenSegments / EVICTION_BATCH_DIVISOR);
+        Iterator<SegmentKey> keys = opened.keySet().iterator();
+        while (batch-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.budgetmanager.backend.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Moves expenses created before the archive horizon out of the expense table into
+ * {@link ExpenseArchive} segments, one new segment per user per run. Each user is handled in
+ * one transaction: lock the user row, read the old rows, write segment n + 1, delete the rows
+ * and set _user.archived_segments to n + 1. If anything fails first, the rows stay live and
+ * the segment file is ignored until the next run overwrites it. Once a user's transaction has
+ * committed, afterUserArchived is told so caches of their live rows (search indexes on this
+ * instance) can be dropped. Expenses kept on app.sharding shards are not archived.
+ */
+public class ExpenseArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseArchiver.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    static final String USERS_WITH_OLD_EXPENSES = "SELECT DISTINCT user_id FROM expense WHERE created_at < ?";
+    static final String LOCK_USER = "SELECT archived_segments FROM _user WHERE id = ? FOR UPDATE";
+    static final String OLD_ROWS = ExpenseArchive.SELECT_ROWS + " AND e.created_at < ? ORDER BY e.id";
+    static final String SET_SEGMENTS = "UPDATE _user SET archived_segments = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpenseArchive archive;
+    private final Duration horizon;
+    private final LongConsumer afterUserArchived;
+
+    public ExpenseArchiver(DataSource dataSource, PlatformTransactionManager transactionManager,
+                           ExpenseArchive archive, Duration horizon, LongConsumer afterUserArchived) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archive = archive;
+        this.horizon = horizon;
+        this.afterUserArchived = afterUserArchived;
+    }
+
+    // Archives everything older than the horizon; returns the number of rows moved
+    public long run() {
+        return archiveOlderThan(Instant.now().minus(horizon));
+    }
+
+    public long archiveOlderThan(Instant cutoff) {
+        long start = System.nanoTime();
+        List<Long> userIds = jdbcTemplate.queryForList(USERS_WITH_OLD_EXPENSES, Long.class, Timestamp.from(cutoff));
+        long moved = 0;
+        int failed = 0;
+        for (long userId : userIds) {
+            try {
+                int archived = archiveUser(userId, cutoff);
+                if (archived > 0) {
+                    afterUserArchived.accept(userId);
+                }
+                moved += archived;
+            } catch (RuntimeException e) {
+                // Left live for the next run; the other users go ahead
+                failed++;
+                log.warn("Could not archive expenses of user {}", userId, e);
+            }
+        }
+        log.info("Archived {} expenses created before {} for {} users ({} failed) in {} ms",
+                moved, cutoff, userIds.size() - failed, failed, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return moved;
+    }
+
+    private int archiveUser(long userId, Instant cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            Integer segments = jdbcTemplate.queryForObject(LOCK_USER, Integer.class, userId);
+            ExpenseSegment.Writer writer = new ExpenseSegment.Writer();
+            List<Long> ids = new ArrayList<>();
+            jdbcTemplate.query(OLD_ROWS, rs -> {
+                long id = rs.getLong(1);
+                ids.add(id);
+                writer.add(id, rs.getTimestamp(2).toInstant(), rs.getString(3), rs.getString(4), rs.getLong(5));
+            }, userId, Timestamp.from(cutoff));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            int segment = segments + 1;
+            try {
+                writer.writeTo(archive.segmentPath(userId, segment));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write archive segment " + segment + " of user " + userId, e);
+            }
+            int deleted = deleteIds(userId, ids);
+            if (deleted != ids.size()) {
+                // The user deleted some of them meanwhile; the segment would bring them back
+                throw new IllegalStateException("Expected to archive " + ids.size() + " expenses but deleted " + deleted);
+            }
+            jdbcTemplate.update(SET_SEGMENTS, segment, userId);
+            return ids.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    private int deleteIds(long userId, List<Long> ids) {
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            deleted += named.update("DELETE FROM expense WHERE user_id = :userId AND id IN (:ids)",
+                    new MapSqlParameterSource().addValue("userId", userId).addValue("ids", batch));
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,118 @@
+package com.budgetmanager.backend.archive;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.shard.ShardedExpenseStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes all of a user's expenses as CSV (id, created_at, name, category, amount): the archived
+ * segments first, oldest first, then the live rows streamed from the database fetch-size rows
+ * at a time (on MySQL only with useCursorFetch=true; otherwise the driver reads them all first).
+ *
+ * The segment count and the live rows are read in one read-only REPEATABLE READ transaction,
+ * so both come from the same snapshot and rows archived mid-export are neither lost nor doubled.
+ */
+@Component
+public class ExpenseExporter {
+
+    static final String HEADER = "id,created_at,name,category,amount\n";
+    static final String LIVE_ROWS = ExpenseArchive.SELECT_ROWS + " ORDER BY e.id";
+    static final String ARCHIVED_SEGMENTS = "SELECT archived_segments FROM _user WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshot;
+    private final ExpenseArchive archive;
+    private final ShardedExpenseStore shardedStore;
+    private final long timeoutMillis;
+
+    public ExpenseExporter(DataSource dataSource, PlatformTransactionManager transactionManager, ExpenseArchive archive,
+                           ObjectProvider<ShardedExpenseStore> shardedStore,
+                           @Value("${app.export.fetch-size:1000}") int fetchSize,
+                           @Value("${app.export.timeout-seconds:600}") long timeoutSeconds) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.archive = archive;
+        this.shardedStore = shardedStore.getIfAvailable();
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    // How long one export may stream before it is abandoned
+    public long timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void writeCsv(User user, Writer out) throws IOException {
+        out.write(HEADER);
+        if (shardedStore != null) {
+            // Shards keep no creation time
+            for (Expense expense : shardedStore.findAllByUserId(user.getId())) {
+                writeRow(out, expense.getId(), null, expense.getName(), expense.getCategory(),
+                        MinorUnitsConverter.toMinor(expense.getAmount()));
+            }
+            return;
+        }
+
+        try {
+            snapshot.executeWithoutResult(status -> {
+                // Not the user's count, which may predate the snapshot this first read fixes
+                int segments = jdbcTemplate.queryForObject(ARCHIVED_SEGMENTS, Integer.class, user.getId());
+                for (int segment = 1; segment <= segments; segment++) {
+                    archive.open(user.getId(), segment).forEachRow((id, createdAt, name, category, amountMinor) ->
+                            writeRow(out, id, createdAt, name, category, amountMinor));
+                }
+                jdbcTemplate.query(LIVE_ROWS, rs -> {
+                    writeRow(out, rs.getLong(1), rs.getTimestamp(2).toInstant(), rs.getString(3), rs.getString(4), rs.getLong(5));
+                }, user.getId());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeRow(Writer out, long id, Instant createdAt, String name, String category, long amountMinor) {
+        try {
+            out.write(Long.toString(id));
+            out.write(',');
+            out.write(createdAt == null ? "" : createdAt.toString());
+            out.write(',');
+            out.write(field(name));
+            out.write(',');
+            out.write(field(category));
+            out.write(',');
+            out.write(BigDecimal.valueOf(amountMinor, 2).toPlainString());
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Quotes when needed, and defuses text a spreadsheet would run as a formula
+    private static String field(String value) {
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
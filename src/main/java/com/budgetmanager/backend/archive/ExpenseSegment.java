@@ -0,0 +1,368 @@
+package com.budgetmanager.backend.archive;
+
+import com.budgetmanager.backend.analytics.ExpenseColumns;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A batch of one user's archived expenses, stored column by column behind an uncompressed
+ * summary header. Layout (big-endian):
+ * <pre>
+ *   magic "EXSG", format version (short)
+ *   rows (int), first and last created_at (epoch millis), total (minor units)
+ *   categories (int), then per category: name (short length + UTF-8), total (long), rows (int)
+ *   per column: raw length (int), compressed length (int)
+ *   the Deflate-compressed columns, back to back
+ * </pre>
+ * Columns are ids (ascending, varint deltas), created_at (zigzag varint deltas), category
+ * (varint index into the header), amount (zigzag varint) and name (varint length + UTF-8).
+ * Totals come from the header alone, read with plain positioned reads, aggregations inflate
+ * only the category and amount columns, and exports read all five. An opened segment reads its
+ * file through a memory-mapped buffer, and is safe to share between threads.
+ */
+public final class ExpenseSegment {
+
+    private static final int MAGIC = 0x45585347;
+    private static final short FORMAT_VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int CREATED_AT = 1;
+    private static final int CATEGORY = 2;
+    private static final int AMOUNT = 3;
+    private static final int NAME = 4;
+    private static final int COLUMNS = 5;
+
+    // Enough for the header of a segment with a few dozen categories
+    private static final int HEADER_READ_BYTES = 4096;
+
+    public record CategorySummary(String name, long totalMinor, int rows) {
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(long id, Instant createdAt, String name, String category, long amountMinor);
+    }
+
+    private record Summary(int rows, long firstCreatedAt, long lastCreatedAt, long totalMinor,
+                           List<CategorySummary> categories) {
+    }
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final long firstCreatedAt;
+    private final long lastCreatedAt;
+    private final long totalMinor;
+    private final List<CategorySummary> categories;
+    private final int[] offsets = new int[COLUMNS];
+    private final int[] rawLengths = new int[COLUMNS];
+    private final int[] compressedLengths = new int[COLUMNS];
+
+    private ExpenseSegment(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        Summary summary;
+        try {
+            summary = readSummary(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated expense archive segment");
+        }
+        rows = summary.rows();
+        firstCreatedAt = summary.firstCreatedAt();
+        lastCreatedAt = summary.lastCreatedAt();
+        totalMinor = summary.totalMinor();
+        categories = summary.categories();
+        int offset = buffer.position() + COLUMNS * 8;
+        for (int column = 0; column < COLUMNS; column++) {
+            rawLengths[column] = buffer.getInt();
+            compressedLengths[column] = buffer.getInt();
+            offsets[column] = offset;
+            offset += compressedLengths[column];
+        }
+        if (offset != buffer.limit()) {
+            throw new IOException("Truncated expense archive segment");
+        }
+    }
+
+    public static ExpenseSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new ExpenseSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // The per-category summaries from the header, without mapping the file
+    public static List<CategorySummary> readCategories(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int length = (int) Math.min(size, HEADER_READ_BYTES);
+            while (true) {
+                ByteBuffer header = ByteBuffer.allocate(length);
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                    // Keep reading until the buffer is full; the file is at least this long
+                }
+                try {
+                    return readSummary(header.flip()).categories();
+                } catch (BufferUnderflowException e) {
+                    if (length == size) {
+                        throw new IOException("Truncated expense archive segment");
+                    }
+                    length = (int) Math.min(size, (long) length * 2);
+                }
+            }
+        }
+    }
+
+    private static Summary readSummary(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION) {
+            throw new IOException("Not an expense archive segment");
+        }
+        int rows = buffer.getInt();
+        long firstCreatedAt = buffer.getLong();
+        long lastCreatedAt = buffer.getLong();
+        long totalMinor = buffer.getLong();
+        int categoryCount = buffer.getInt();
+        List<CategorySummary> summaries = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            byte[] name = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(name);
+            summaries.add(new CategorySummary(new String(name, StandardCharsets.UTF_8), buffer.getLong(), buffer.getInt()));
+        }
+        return new Summary(rows, firstCreatedAt, lastCreatedAt, totalMinor, List.copyOf(summaries));
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public Instant firstCreatedAt() {
+        return Instant.ofEpochMilli(firstCreatedAt);
+    }
+
+    public Instant lastCreatedAt() {
+        return Instant.ofEpochMilli(lastCreatedAt);
+    }
+
+    public long totalMinor() {
+        return totalMinor;
+    }
+
+    // Indexed by the segment's own category code
+    public List<CategorySummary> categories() {
+        return categories;
+    }
+
+    // Appends every row; categoryCodes maps the segment's category codes to the builder's
+    public void readColumns(ExpenseColumns.Builder builder, int[] categoryCodes) {
+        ByteBuffer category = inflate(CATEGORY);
+        ByteBuffer amount = inflate(AMOUNT);
+        for (int row = 0; row < rows; row++) {
+            builder.add(categoryCodes[(int) readVarLong(category)], unzigzag(readVarLong(amount)));
+        }
+    }
+
+    public void forEachRow(RowVisitor visitor) {
+        ByteBuffer id = inflate(ID);
+        ByteBuffer createdAt = inflate(CREATED_AT);
+        ByteBuffer category = inflate(CATEGORY);
+        ByteBuffer amount = inflate(AMOUNT);
+        ByteBuffer name = inflate(NAME);
+        long lastId = 0;
+        long lastCreated = 0;
+        for (int row = 0; row < rows; row++) {
+            lastId += readVarLong(id);
+            lastCreated += unzigzag(readVarLong(createdAt));
+            byte[] nameBytes = new byte[(int) readVarLong(name)];
+            name.get(nameBytes);
+            visitor.visit(lastId, Instant.ofEpochMilli(lastCreated), new String(nameBytes, StandardCharsets.UTF_8),
+                    categories.get((int) readVarLong(category)).name(), unzigzag(readVarLong(amount)));
+        }
+    }
+
+    private ByteBuffer inflate(int column) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(offsets[column], compressedLengths[column]));
+            ByteBuffer raw = ByteBuffer.allocate(rawLengths[column]);
+            while (raw.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (raw.hasRemaining()) {
+                throw new IllegalStateException("Truncated column in expense archive segment");
+            }
+            return raw.flip();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt column in expense archive segment", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Collects rows, in ascending id order, and writes them out as one segment. The file is
+     * written next to its final name, forced to disk and then moved into place, replacing any
+     * segment left there by an earlier failed run.
+     */
+    public static final class Writer {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> categoryNames = new ArrayList<>();
+        private long[] categoryTotals = new long[8];
+        private int[] categoryRows = new int[8];
+        private final ColumnBuffer[] columns = new ColumnBuffer[COLUMNS];
+        private int rows;
+        private long lastId;
+        private long lastCreatedAt;
+        private long firstCreatedAt;
+        private long totalMinor;
+
+        public Writer() {
+            Arrays.setAll(columns, column -> new ColumnBuffer());
+        }
+
+        public void add(long id, Instant createdAt, String name, String category, long amountMinor) {
+            if (rows > 0 && id <= lastId) {
+                throw new IllegalArgumentException("Rows must be added in ascending id order");
+            }
+            int code = codes.computeIfAbsent(category, c -> {
+                categoryNames.add(c);
+                return categoryNames.size() - 1;
+            });
+            if (code == categoryTotals.length) {
+                categoryTotals = Arrays.copyOf(categoryTotals, code * 2);
+                categoryRows = Arrays.copyOf(categoryRows, code * 2);
+            }
+            categoryTotals[code] += amountMinor;
+            categoryRows[code]++;
+            totalMinor += amountMinor;
+
+            long created = createdAt.toEpochMilli();
+            if (rows == 0) {
+                firstCreatedAt = created;
+            }
+            columns[ID].writeVarLong(id - lastId);
+            columns[CREATED_AT].writeVarLong(zigzag(created - lastCreatedAt));
+            columns[CATEGORY].writeVarLong(code);
+            columns[AMOUNT].writeVarLong(zigzag(amountMinor));
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            columns[NAME].writeVarLong(nameBytes.length);
+            columns[NAME].write(nameBytes, 0, nameBytes.length);
+            lastId = id;
+            lastCreatedAt = created;
+            rows++;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public void writeTo(Path file) throws IOException {
+            byte[][] compressed = new byte[COLUMNS][];
+            int size = 4 + 2 + 4 + 8 + 8 + 8 + 4 + COLUMNS * 8;
+            byte[][] names = new byte[categoryNames.size()][];
+            for (int code = 0; code < names.length; code++) {
+                names[code] = categoryNames.get(code).getBytes(StandardCharsets.UTF_8);
+                size += 2 + names[code].length + 8 + 4;
+            }
+            for (int column = 0; column < COLUMNS; column++) {
+                compressed[column] = deflate(columns[column].toByteArray());
+                size += compressed[column].length;
+            }
+
+            ByteBuffer out = ByteBuffer.allocate(size);
+            out.putInt(MAGIC).putShort(FORMAT_VERSION);
+            out.putInt(rows).putLong(firstCreatedAt).putLong(lastCreatedAt).putLong(totalMinor);
+            out.putInt(names.length);
+            for (int code = 0; code < names.length; code++) {
+                out.putShort((short) names[code].length).put(names[code]);
+                out.putLong(categoryTotals[code]).putInt(categoryRows[code]);
+            }
+            for (int column = 0; column < COLUMNS; column++) {
+                out.putInt(columns[column].size()).putInt(compressed[column].length);
+            }
+            for (byte[] column : compressed) {
+                out.put(column);
+            }
+
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    out.flip();
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+
+        private static byte[] deflate(byte[] raw) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+                byte[] chunk = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(chunk, 0, deflater.deflate(chunk));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class ColumnBuffer extends ByteArrayOutputStream {
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+}
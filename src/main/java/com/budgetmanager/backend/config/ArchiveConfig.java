@@ -0,0 +1,44 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.archive.ExpenseArchive;
+import com.budgetmanager.backend.archive.ExpenseArchiver;
+import com.budgetmanager.backend.search.ExpenseSearchService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Archives expenses older than app.archive.horizon-days on app.archive.cron. Runs on any
+ * number of instances (users are locked one at a time), but one is enough.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class ArchiveConfig {
+
+    private final ExpenseArchiver expenseArchiver;
+
+    public ArchiveConfig(DataSource dataSource, PlatformTransactionManager transactionManager, ExpenseArchive archive,
+                         ExpenseSearchService searchService,
+                         @Value("${app.archive.horizon-days:730}") long horizonDays) {
+        this.expenseArchiver = new ExpenseArchiver(dataSource, transactionManager, archive, Duration.ofDays(horizonDays),
+                searchService::invalidate);
+    }
+
+    @Bean
+    public ExpenseArchiver expenseArchiver() {
+        return expenseArchiver;
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 0 3 * * *}")
+    public void archiveExpenses() {
+        expenseArchiver.run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.datasource.ReadYourWritesTracker;
+import com.budgetmanager.backend.datasource.ReplicaRoutingDataSource;
+import com.budgetmanager.backend.datasource.WriteTrackingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to replica pools and everything else to the primary.
+ *
+ * The application DataSource is a LazyConnectionDataSourceProxy: the physical connection is
+ * only fetched at the first statement, after the transaction manager has marked it read-only,
+ * so {@code @Transactional(readOnly = true)} work lands on a replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.read-your-writes-window-ms:2000}") long windowMillis) {
+        return new ReadYourWritesTracker(windowMillis);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      ReadYourWritesTracker readYourWritesTracker,
+                                                      Environment environment,
+                                                      @Value("${app.datasource.replica-retry-ms:30000}") long retryMillis) {
+        // Each app.datasource.replicas[n].* block binds straight onto its own HikariConfig
+        List<HikariConfig> configs = Binder.get(environment)
+                .bind("app.datasource.replicas", Bindable.listOf(HikariConfig.class))
+                .orElse(List.of());
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            HikariConfig config = configs.get(i);
+            if (config.getPoolName() == null) {
+                config.setPoolName("replica-" + i);
+            }
+            // A replica that is down at startup must not stop the app; reads fall back to the primary
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker, retryMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaDataSource,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(new WriteTrackingDataSource(primaryDataSource, readYourWritesTracker));
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,29 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.groupcommit.ExpenseGroupCommitter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Batches concurrent expense inserts into shared transactions (see {@link ExpenseGroupCommitter}).
+ * Only applies to the main database; sharded writes are unaffected.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.expenses.group-commit.enabled", havingValue = "true")
+public class GroupCommitConfig {
+
+    @Bean
+    public ExpenseGroupCommitter expenseGroupCommitter(DataSource dataSource,
+                                                       PlatformTransactionManager transactionManager,
+                                                       @Value("${app.expenses.group-commit.max-batch-size:100}") int maxBatchSize,
+                                                       @Value("${app.expenses.group-commit.max-delay-ms:0}") long maxDelayMs,
+                                                       @Value("${app.expenses.group-commit.queue-capacity:2000}") int queueCapacity,
+                                                       @Value("${app.expenses.group-commit.write-timeout-ms:5000}") long writeTimeoutMs) {
+        return new ExpenseGroupCommitter(dataSource, transactionManager, maxBatchSize, maxDelayMs, queueCapacity, writeTimeoutMs);
+    }
+}
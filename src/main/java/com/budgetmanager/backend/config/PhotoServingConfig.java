@@ -0,0 +1,46 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.file.FileStorageService;
+import com.budgetmanager.backend.profile.ProfilePhotoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The photo executor: app.photos.threads threads and a queue of app.photos.queue-capacity,
+ * rejecting beyond that. Pool size, queue depth and task timings are published as executor.*
+ * metrics tagged name=profile-photos.
+ */
+@Configuration
+public class PhotoServingConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService photoExecutor(MeterRegistry meterRegistry,
+                                         @Value("${app.photos.threads:4}") int threads,
+                                         @Value("${app.photos.queue-capacity:50}") int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "photo-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "profile-photos");
+    }
+
+    @Bean
+    public ProfilePhotoService profilePhotoService(FileStorageService fileStorageService,
+                                                   ExecutorService photoExecutor,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${app.photos.timeout-ms:5000}") long timeoutMillis) {
+        return new ProfilePhotoService(fileStorageService, photoExecutor, timeoutMillis, meterRegistry);
+    }
+}
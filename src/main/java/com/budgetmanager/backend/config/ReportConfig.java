@@ -0,0 +1,48 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.archive.ExpenseArchive;
+import com.budgetmanager.backend.report.SpendingReportJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+/**
+ * Runs the system-wide spending report on app.report.cron. Enable it on one instance only;
+ * each enabled instance writes its own copy.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.report.enabled", havingValue = "true")
+public class ReportConfig {
+
+    private final SpendingReportJob spendingReportJob;
+
+    public ReportConfig(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                        ExpenseArchive archive,
+                        @Value("${app.report.parallelism:4}") int parallelism,
+                        @Value("${app.report.chunk-size:1000}") int chunkSize,
+                        @Value("${app.report.fetch-size:1000}") int fetchSize,
+                        @Value("${app.report.over-budget-limit:100}") int overBudgetLimit,
+                        @Value("${app.report.output-dir:./reports/}") String outputDir) {
+        this.spendingReportJob = new SpendingReportJob(dataSource, transactionManager, objectMapper, archive,
+                parallelism, chunkSize, fetchSize, overBudgetLimit, Path.of(outputDir));
+    }
+
+    @Bean
+    public SpendingReportJob spendingReportJob() {
+        return spendingReportJob;
+    }
+
+    @Scheduled(cron = "${app.report.cron:0 30 2 * * *}")
+    public void runSpendingReport() {
+        spendingReportJob.run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.shard.ExpenseShardRebalancer;
+import com.budgetmanager.backend.shard.ShardRouter;
+import com.budgetmanager.backend.shard.ShardedExpenseStore;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores expenses on app.sharding.shards[n] instead of the main database, partitioned by user id.
+ * The shard pools are private to the store, so JPA and the rest of the app keep using the
+ * main DataSource.
+ *
+ * Sharded instances never read the main expense table, so startup refuses to go ahead while it
+ * still has rows, unless app.sharding.backfill-on-startup moves them onto the shards first.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardedExpenseStore shardedExpenseStore(Environment environment, JdbcTemplate jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager,
+                                                   @Value("${app.sharding.previous-shard-count:0}") int previousShardCount,
+                                                   @Value("${app.sharding.backfill-on-startup:false}") boolean backfillOnStartup) {
+        List<HikariConfig> configs = Binder.get(environment)
+                .bind("app.sharding.shards", Bindable.listOf(HikariConfig.class))
+                .orElseThrow(() -> new IllegalStateException("app.sharding.enabled is set but no app.sharding.shards are configured"));
+
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            HikariConfig config = configs.get(i);
+            if (config.getPoolName() == null) {
+                config.setPoolName("shard-" + i);
+            }
+            shards.add(new HikariDataSource(config));
+        }
+
+        ShardedExpenseStore store = new ShardedExpenseStore(shards, new ShardRouter(shards.size(), previousShardCount));
+        store.migrateSchema();
+
+        Long unsharded = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense", Long.class);
+        if (unsharded != null && unsharded > 0) {
+            if (!backfillOnStartup) {
+                throw new IllegalStateException("The expense table still has " + unsharded + " rows that sharded instances"
+                        + " would not see; start one instance with app.sharding.backfill-on-startup=true to move them");
+            }
+            new ExpenseShardRebalancer(store).backfill(jdbcTemplate, transactionManager);
+        }
+        return store;
+    }
+
+    @Bean
+    public ExpenseShardRebalancer expenseShardRebalancer(ShardedExpenseStore shardedExpenseStore) {
+        return new ExpenseShardRebalancer(shardedExpenseStore);
+    }
+
+    // Moves users onto new shards in the background while the app serves traffic
+    @Bean
+    @ConditionalOnProperty(name = "app.sharding.rebalance-on-startup", havingValue = "true")
+    public ApplicationRunner shardRebalanceRunner(ExpenseShardRebalancer rebalancer) {
+        return args -> {
+            Thread thread = new Thread(rebalancer::rebalance, "shard-rebalancer");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+}
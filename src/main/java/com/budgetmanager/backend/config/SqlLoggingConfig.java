@@ -0,0 +1,35 @@
+package com.budgetmanager.backend.config;
+
+import com.budgetmanager.backend.logging.SqlLoggingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource (the "dataSource" bean, whether Boot's pool or the routing
+ * proxy) in a {@link SqlLoggingDataSource}. Replaces spring.jpa.show-sql, which printed every
+ * statement to stdout without bind values or timings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.logging.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlLoggingConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlLoggingDataSourcePostProcessor(
+            @Value("${app.logging.sql.slow-threshold-ms:500}") long slowThresholdMillis,
+            @Value("${app.logging.sql.sample-rate:0}") double sampleRate) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return new SqlLoggingDataSource(dataSource, slowThresholdMillis, sampleRate);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -5,6 +5,7 @@ import com.budgetmanager.backend.dto.ChangePasswordRequest;
 import com.budgetmanager.backend.dto.LoginRequest;
 import com.budgetmanager.backend.dto.RegisterRequest;
 import com.budgetmanager.backend.service.AuthService;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -43,18 +44,34 @@ public class AuthController {
             @RequestBody ChangePasswordRequest request
     ) {
         try {
-            authService.changePassword(request);
-            // Return success message
-            return ResponseEntity.ok(Map.of("message", "Password changed successfully"));
+            AuthResponse response = authService.changePassword(request);
+            // Return success message; older tokens are revoked, so hand back a fresh one
+            return ResponseEntity.ok(Map.of(
+                    "message", "Password changed successfully",
+                    "token", response.getToken()
+            ));
         } catch (IllegalArgumentException e) {
             // Return specific error for bad requests (e.g., wrong current password, passwords don't match)
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IllegalStateException e) {
              // Return unauthorized if the user somehow isn't properly authenticated
             return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             // Generic server error for other unexpected issues
              return ResponseEntity.status(500).body(Map.of("error", "An unexpected error occurred"));
         }
     }
+
+    // Endpoint for revoking every token issued to the current user
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutEverywhere() {
+        try {
+            authService.logoutEverywhere();
+            return ResponseEntity.ok(Map.of("message", "Logged out from all sessions"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
+        }
+    }
 }
\ No newline at end of file
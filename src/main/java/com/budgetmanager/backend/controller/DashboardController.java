@@ -0,0 +1,56 @@
+package com.budgetmanager.backend.controller;
+
+import com.budgetmanager.backend.dashboard.DashboardService;
+import com.budgetmanager.backend.service.UserService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+// One call for the frontend's initial load instead of /api/data/budget, /api/data/expenses,
+// /api/profile and /api/profile/photo-url
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final UserService userService;
+    private final DashboardService dashboardService;
+
+    public DashboardController(UserService userService, DashboardService dashboardService) {
+        this.userService = userService;
+        this.dashboardService = dashboardService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getDashboard(
+            @RequestParam(defaultValue = "budget,expenses,summary,profile") String fields,
+            @RequestParam(defaultValue = "20") int recent
+    ) {
+        Set<String> selected = Arrays.stream(fields.split(","))
+                .map(String::strip)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+        if (selected.isEmpty() || !DashboardService.FIELDS.containsAll(selected) || recent < 1 || recent > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "fields must be a comma-separated subset of budget, expenses, summary, profile and recent between 1 and 100"));
+        }
+
+        String baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+        try {
+            return ResponseEntity.ok(dashboardService.load(userService.currentUser(), baseUrl, selected, recent));
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "The dashboard took too long to load, please try again"));
+        }
+    }
+}
@@ -1,45 +1,71 @@
 package com.budgetmanager.backend.controller;
 
+import com.budgetmanager.backend.analytics.ExpenseAnalyticsService;
+import com.budgetmanager.backend.archive.ExpenseExporter;
+import com.budgetmanager.backend.dto.ExpenseAnalyticsDto;
+import com.budgetmanager.backend.dto.ExpenseSearchResultDto;
+import com.budgetmanager.backend.logging.MdcPropagation;
 import com.budgetmanager.backend.model.Expense;
 import com.budgetmanager.backend.model.User;
-import com.budgetmanager.backend.repository.ExpenseRepository;
-import com.budgetmanager.backend.repository.UserRepository;
+import com.budgetmanager.backend.search.ExpenseSearchIndex;
+import com.budgetmanager.backend.search.ExpenseSearchService;
+import com.budgetmanager.backend.service.ExpenseService;
+import com.budgetmanager.backend.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/data") 
 public class DataController {
 
-    private final UserRepository userRepository;
-    private final ExpenseRepository expenseRepository;
+    private final UserService userService;
+    private final ExpenseService expenseService;
+    private final ExpenseAnalyticsService analyticsService;
+    private final ExpenseSearchService searchService;
+    private final ExpenseExporter exporter;
 
-    public DataController(UserRepository userRepository, ExpenseRepository expenseRepository) {
-        this.userRepository = userRepository;
-        this.expenseRepository = expenseRepository;
+    public DataController(UserService userService, ExpenseService expenseService,
+                          ExpenseAnalyticsService analyticsService, ExpenseSearchService searchService,
+                          ExpenseExporter exporter) {
+        this.userService = userService;
+        this.expenseService = expenseService;
+        this.analyticsService = analyticsService;
+        this.searchService = searchService;
+        this.exporter = exporter;
     }
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return userService.currentUser();
     }
 
     @GetMapping("/budget")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Double>> getBudget() {
         User user = getCurrentUser();
         return ResponseEntity.ok(Map.of("budget", user.getBudget()));
     }
 
     @PostMapping("/budget")
-    public ResponseEntity<Map<String, Double>> setBudget(
+    public ResponseEntity<?> setBudget(
             @RequestBody Map<String, Double> request
     ) {
         User user = getCurrentUser();
@@ -49,29 +75,110 @@ public class DataController {
             return ResponseEntity.badRequest().build();
         }
 
-        user.setBudget(newBudget);
-        userRepository.save(user);
+        try {
+            userService.updateBudget(user, newBudget);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
         
         return ResponseEntity.ok(Map.of("budget", user.getBudget()));
     }
 
     @GetMapping("/expenses")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Expense>> getExpenses() {
         User user = getCurrentUser();
-        List<Expense> expenses = expenseRepository.findAllByUserId(user.getId());
+        List<Expense> expenses = expenseService.findAllByUserId(user.getId());
         return ResponseEntity.ok(expenses);
     }
 
+    // Every expense as CSV, archived ones included, streamed as it is read on its own timeout
+    @GetMapping("/expenses/export")
+    public WebAsyncTask<Void> exportExpenses(HttpServletResponse response) {
+        User user = getCurrentUser();
+        response.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"expenses.csv\"");
+        Supplier<Void> body = MdcPropagation.propagate(() -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+                exporter.writeCsv(user, writer);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        WebAsyncTask<Void> export = new WebAsyncTask<>(exporter.timeoutMillis(), body::get);
+        export.onTimeout(() -> {
+            if (!response.isCommitted()) {
+                throw new AsyncRequestTimeoutException();
+            }
+            // Part of the file is out under a 200. An unhandled failure makes the server drop the
+            // connection rather than end the body, so the client cannot take it for the whole export.
+            throw new IllegalStateException("Export of user " + user.getId() + " timed out mid-stream");
+        });
+        return export;
+    }
+
+    @GetMapping("/expenses/search")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> searchExpenses(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (q.isBlank() || page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "q must not be blank, page >= 0 and size between 1 and 100"));
+        }
+        User user = getCurrentUser();
+        ExpenseSearchIndex.Page result = searchService.search(user.getId(), q, page, size);
+        return ResponseEntity.ok(ExpenseSearchResultDto.builder()
+                .query(q)
+                .page(page)
+                .size(size)
+                .total(result.total())
+                .hits(result.hits())
+                .build());
+    }
+
+    @GetMapping("/expenses/categories")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Double>> getCategoryTotals() {
+        User user = getCurrentUser();
+        return ResponseEntity.ok(analyticsService.categoryTotals(user));
+    }
+
+    @GetMapping("/analytics")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getAnalytics(
+            @RequestParam(defaultValue = "5") int top,
+            @RequestParam(defaultValue = "10") double bucketWidth,
+            @RequestParam(defaultValue = "10") int buckets
+    ) {
+        User user = getCurrentUser();
+        try {
+            ExpenseAnalyticsDto analytics = analyticsService.summarize(user, top, bucketWidth, buckets);
+            return ResponseEntity.ok(analytics);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/expenses")
-    public ResponseEntity<Expense> addExpense(
+    public ResponseEntity<?> addExpense(
             @Valid @RequestBody Expense newExpense
     ) {
         User user = getCurrentUser();
         
-        newExpense.setUser(user);
-        Expense savedExpense = expenseRepository.save(newExpense);
-        
-        return ResponseEntity.ok(savedExpense);
+        try {
+            Expense savedExpense = expenseService.add(newExpense, user);
+            searchService.onExpenseAdded(user.getId(), savedExpense);
+            return ResponseEntity.ok(savedExpense);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/expenses/{id}")
@@ -80,14 +187,10 @@ public class DataController {
     ) {
         User user = getCurrentUser();
         
-        Expense expense = expenseRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Expense not found"));
-
-        if (!expense.getUser().getId().equals(user.getId())) {
+        if (!expenseService.delete(id, user)) {
             return ResponseEntity.status(403).body("You do not own this expense");
         }
-
-        expenseRepository.delete(expense);
+        searchService.onExpenseDeleted(user.getId(), id);
         
         return ResponseEntity.ok(Map.of("message", "Expense deleted successfully"));
     }
@@ -0,0 +1,113 @@
+package com.budgetmanager.backend.dashboard;
+
+import com.budgetmanager.backend.analytics.ExpenseAnalyticsService;
+import com.budgetmanager.backend.dto.DashboardDto;
+import com.budgetmanager.backend.logging.MdcPropagation;
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.profile.ProfileResponseCache;
+import com.budgetmanager.backend.service.ExpenseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything the frontend needs for its first page in one call. The two parts that query the
+ * database (recent expenses and the summary) run concurrently on a bounded executor while the
+ * in-memory parts (budget, the cached profile body) are filled in on the request thread.
+ *
+ * When every dashboard thread is busy and the queue is full, sub-fetches run on the calling
+ * thread instead, so overload degrades to sequential loading rather than errors.
+ */
+@Service
+public class DashboardService {
+
+    public static final Set<String> FIELDS = Set.of("budget", "expenses", "summary", "profile");
+
+    private final ExpenseService expenseService;
+    private final ExpenseAnalyticsService analyticsService;
+    private final ProfileResponseCache profileResponseCache;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    public DashboardService(ExpenseService expenseService,
+                            ExpenseAnalyticsService analyticsService,
+                            ProfileResponseCache profileResponseCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.dashboard.threads:8}") int threads,
+                            @Value("${app.dashboard.queue-capacity:100}") int queueCapacity,
+                            @Value("${app.dashboard.timeout-ms:5000}") long timeoutMillis) {
+        this.expenseService = expenseService;
+        this.analyticsService = analyticsService;
+        this.profileResponseCache = profileResponseCache;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "dashboard-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = new DelegatingSecurityContextExecutorService(
+                ExecutorServiceMetrics.monitor(meterRegistry, pool, "dashboard"));
+    }
+
+    // Throws TimeoutException when the database parts take longer than app.dashboard.timeout-ms
+    public DashboardDto load(User user, String baseUrl, Set<String> fields, int recentExpenses)
+            throws TimeoutException {
+        Long userId = user.getId();
+        CompletableFuture<List<Expense>> recent = fields.contains("expenses")
+                ? CompletableFuture.supplyAsync(MdcPropagation.propagate(
+                        () -> expenseService.findRecent(userId, recentExpenses)), executor)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<DashboardDto.Summary> summary = fields.contains("summary")
+                ? CompletableFuture.supplyAsync(MdcPropagation.propagate(
+                        () -> analyticsService.dashboardSummary(user)), executor)
+                : CompletableFuture.completedFuture(null);
+
+        DashboardDto.DashboardDtoBuilder dashboard = DashboardDto.builder();
+        if (fields.contains("budget")) {
+            dashboard.budget(user.getBudget());
+        }
+        if (fields.contains("profile")) {
+            dashboard.profile(new String(profileResponseCache.get(user, baseUrl).profile(), StandardCharsets.UTF_8));
+        }
+
+        try {
+            CompletableFuture.allOf(recent, summary).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return dashboard.recentExpenses(recent.join()).summary(summary.join()).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the dashboard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            recent.cancel(false);
+            summary.cancel(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
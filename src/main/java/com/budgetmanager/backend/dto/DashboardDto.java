@@ -0,0 +1,31 @@
+package com.budgetmanager.backend.dto;
+
+import com.budgetmanager.backend.model.Expense;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+// Parts left out through the fields parameter are omitted from the JSON
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardDto {
+    private Double budget;
+    private List<Expense> recentExpenses; // Newest first
+    private Summary summary;
+    @JsonRawValue
+    private String profile; // Same body as GET /api/profile
+
+    @Data
+    @Builder
+    public static class Summary {
+        private int count;
+        private double total;
+        private double remaining; // Budget minus total
+        private Map<String, Double> categoryTotals; // In category name order
+    }
+}
@@ -0,0 +1,18 @@
+package com.budgetmanager.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class ExpenseAnalyticsDto {
+    private int count;
+    private double total;
+    private Map<String, Double> categoryTotals; // In category name order
+    private List<String> topCategories; // Largest total first
+    private double bucketWidth;
+    private long[] histogram; // Expense counts per amount bucket; the last bucket is open-ended
+}
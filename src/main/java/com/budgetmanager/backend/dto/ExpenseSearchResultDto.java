@@ -0,0 +1,17 @@
+package com.budgetmanager.backend.dto;
+
+import com.budgetmanager.backend.search.ExpenseSearchIndex;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ExpenseSearchResultDto {
+    private String query;
+    private int page;
+    private int size;
+    private int total; // Matches across all pages
+    private List<ExpenseSearchIndex.Hit> hits; // Best match first
+}
@@ -1,5 +1,7 @@
 package com.budgetmanager.backend.file;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -20,6 +22,8 @@ import java.util.UUID;
 @Service
 public class FileStorageService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
     @Value("${app.upload.profile-photos.dir}") // Inject the path from application.properties
     private String uploadDir;
 
@@ -30,7 +34,7 @@ public class FileStorageService {
         try {
             rootLocation = Paths.get(uploadDir);
             Files.createDirectories(rootLocation); // Create the upload directory if it doesn't exist
-            System.out.println("Upload directory created/found at: " + rootLocation.toAbsolutePath());
+            log.info("Upload directory created/found at: {}", rootLocation.toAbsolutePath());
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage location", e);
         }
@@ -108,8 +112,7 @@ public class FileStorageService {
             Path file = load(filename);
             Files.deleteIfExists(file);
         } catch (IOException e) {
-            System.err.println("Failed to delete file: " + filename + " - " + e.getMessage());
-            // Log this error properly in a real app
+            log.warn("Failed to delete file: {}", filename, e);
         }
     }
 }
\ No newline at end of file
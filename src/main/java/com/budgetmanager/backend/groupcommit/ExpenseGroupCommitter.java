@@ -0,0 +1,227 @@
+package com.budgetmanager.backend.groupcommit;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Funnels concurrent expense inserts through one writer thread, which commits them in batches:
+ * everything that queued up while the previous batch was committing (and, with a max-delay,
+ * whatever arrives that long after the first row), up to max-batch-size rows, goes into one
+ * JDBC batch and one commit. Batches therefore grow with load on their own, and a lone writer
+ * pays no extra wait. Callers block until their own row is committed.
+ *
+ * The queue is bounded; when it is full, inserts are rejected straight away rather than
+ * piling up. A row still queued after the write timeout is withdrawn and rejected the same way.
+ * A rejected row was never written, so retrying it is safe. A row the writer has already taken
+ * is waited for, since it may be committing. If a batch fails, its rows are retried one
+ * transaction each, so a bad row only fails its own caller.
+ */
+public class ExpenseGroupCommitter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseGroupCommitter.class);
+
+    static final String INSERT = "INSERT INTO expense (name, category_id, amount_minor, user_id) VALUES (?, ?, ?, ?)";
+
+    private record PendingInsert(Expense expense, CompletableFuture<Expense> result) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingInsert> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long writeTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public ExpenseGroupCommitter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 int maxBatchSize, long maxDelayMillis, int queueCapacity, long writeTimeoutMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.writer = new Thread(this::runWriter, "expense-group-commit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Inserts the expense (user and categoryRef already set) and returns it with its id.
+     * Throws RejectedExecutionException, only ever for a row that was not written, when the
+     * queue is full or the row was still queued after the write timeout.
+     */
+    public Expense insert(Expense expense) {
+        PendingInsert pending = enqueue(expense);
+        boolean interrupted = false;
+        try {
+            try {
+                return pending.result().get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                interrupted = e instanceof InterruptedException;
+                if (queue.remove(pending)) {
+                    throw new RejectedExecutionException("Expense write timed out, try again shortly");
+                }
+                // Taken into a batch, so it may be committing; its outcome is the caller's answer
+                return pending.result().join();
+            }
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public CompletableFuture<Expense> submit(Expense expense) {
+        return enqueue(expense).result();
+    }
+
+    private PendingInsert enqueue(Expense expense) {
+        PendingInsert pending = new PendingInsert(expense, new CompletableFuture<>());
+        if (closed || !queue.offer(pending)) {
+            throw new RejectedExecutionException("Too many expense writes in progress, try again shortly");
+        }
+        return pending;
+    }
+
+    private void runWriter() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                PendingInsert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingInsert next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Rows taken for a batch that was never committed
+        reject(batch);
+        rejectQueued();
+    }
+
+    // Anything still queued will never be written
+    private void rejectQueued() {
+        List<PendingInsert> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        reject(abandoned);
+    }
+
+    private static void reject(List<PendingInsert> abandoned) {
+        abandoned.forEach(p -> p.result().completeExceptionally(new RejectedExecutionException("Expense writer stopped")));
+    }
+
+    private void commit(List<PendingInsert> batch) {
+        try {
+            long[] ids = transactionTemplate.execute(status -> insertAll(batch));
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), ids[i]);
+            }
+        } catch (RuntimeException batchFailure) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(batchFailure);
+                return;
+            }
+            log.warn("Group commit of {} expenses failed, retrying them one by one", batch.size(), batchFailure);
+            for (PendingInsert pending : batch) {
+                try {
+                    long[] ids = transactionTemplate.execute(status -> insertAll(List.of(pending)));
+                    complete(pending, ids[0]);
+                } catch (RuntimeException e) {
+                    pending.result().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private long[] insertAll(List<PendingInsert> batch) {
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingInsert pending : batch) {
+                    Expense expense = pending.expense();
+                    statement.setString(1, expense.getName());
+                    statement.setInt(2, expense.getCategoryRef().getId());
+                    statement.setLong(3, MinorUnitsConverter.toMinor(expense.getAmount()));
+                    statement.setLong(4, expense.getUser().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                long[] ids = new long[batch.size()];
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (int i = 0; i < ids.length; i++) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Driver returned " + i + " generated ids for " + ids.length + " rows");
+                        }
+                        ids[i] = keys.getLong(1);
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static void complete(PendingInsert pending, long id) {
+        pending.expense().setId(id);
+        pending.result().complete(pending.expense());
+    }
+
+    // Stops taking new writes, commits what is already queued, then stops the writer
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (writer.isAlive()) {
+            // Still draining; whatever it has not committed is rejected
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        // Submissions that raced with close
+        rejectQueued();
+    }
+}
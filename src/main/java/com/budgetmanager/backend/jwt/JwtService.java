@@ -1,5 +1,6 @@
 package com.budgetmanager.backend.jwt;
 
+import com.budgetmanager.backend.model.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -22,8 +23,15 @@ public class JwtService {
 
     private static final long JWT_EXPIRATION = 1000 * 60 * 60 * 24; // 24 hours
 
+    // Claim holding the user's token generation (User.tokenVersion) at issue time
+    public static final String GENERATION_CLAIM = "gen";
+
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(GENERATION_CLAIM, user.getTokenVersion());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -53,12 +61,18 @@ public class JwtService {
         return extractClaim(token, Claims::getExpiration);
     }
 
+    // Tokens issued before generations existed carry no claim and count as generation 0
+    public int extractGeneration(Claims claims) {
+        Integer generation = claims.get(GENERATION_CLAIM, Integer.class);
+        return generation == null ? 0 : generation;
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
+    public Claims extractAllClaims(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(getSignInKey())
                 .build()
@@ -0,0 +1,83 @@
+package com.budgetmanager.backend.jwt;
+
+import com.budgetmanager.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory table of each user's current token generation (User.tokenVersion).
+ * Entries are loaded lazily from the database, dropped when this instance bumps a
+ * generation, and reloaded after the TTL so bumps made by other instances are seen too.
+ */
+@Component
+public class TokenGenerationCache {
+
+    private static final int UNKNOWN_USER = -1;
+    private static final int EVICTION_BATCH_DIVISOR = 100;
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> generations = new ConcurrentHashMap<>();
+
+    private record Entry(int generation, long loadedAt) {}
+
+    public TokenGenerationCache(UserRepository userRepository,
+                                @Value("${app.jwt.generation-cache.ttl-seconds:30}") long ttlSeconds,
+                                @Value("${app.jwt.generation-cache.max-entries:100000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isCurrent(String username, int tokenGeneration) {
+        return tokenGeneration == currentGeneration(username);
+    }
+
+    public int currentGeneration(String username) {
+        long now = System.nanoTime();
+        Entry entry = generations.get(username);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            return entry.generation();
+        }
+
+        Integer generation = userRepository.findTokenVersionByUsername(username).orElse(null);
+        if (generation == null) {
+            generations.remove(username);
+            return UNKNOWN_USER;
+        }
+        put(username, generation, now);
+        return generation;
+    }
+
+    // Called after a bump so the new generation is visible without a reload
+    public void update(String username, int generation) {
+        put(username, generation, System.nanoTime());
+    }
+
+    public void invalidate(String username) {
+        generations.remove(username);
+    }
+
+    private void put(String username, int generation, long now) {
+        if (generations.size() >= maxEntries && !generations.containsKey(username)) {
+            evictSome();
+        }
+        generations.put(username, new Entry(generation, now));
+    }
+
+    // Drops a small batch of arbitrary entries, so a full table costs a few reloads rather
+    // than every active user missing at once
+    private void evictSome() {
+        int batch = Math.max(1, maxEntries / EVICTION_BATCH_DIVISOR);
+        Iterator<String> usernames = generations.keySet().iterator();
+        while (batch-- > 0 && usernames.hasNext()) {
+            usernames.next();
+            usernames.remove();
+        }
+    }
+}
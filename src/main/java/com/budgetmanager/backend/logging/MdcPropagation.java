@@ -0,0 +1,34 @@
+package com.budgetmanager.backend.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Carries the caller's MDC (request id and friends) onto executor threads
+public final class MdcPropagation {
+
+    private MdcPropagation() {
+    }
+
+    // Captures the MDC now and installs it around each run of the task
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(context);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previous);
+                }
+            }
+        };
+    }
+}
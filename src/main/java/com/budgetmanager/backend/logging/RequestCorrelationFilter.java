@@ -0,0 +1,82 @@
+package com.budgetmanager.backend.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Tags every log line written while handling a request with its id (MDC key requestId), taken
+ * from X-Request-Id when the caller sends a sane one and echoed back in the response.
+ *
+ * Also decides whether this request gets Spring Security debug output (see
+ * {@link SecurityDebugTurboFilter}): when X-Debug-Security carries the configured token, or for
+ * a sampled fraction of requests.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestCorrelationFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String SECURITY_DEBUG_HEADER = "X-Debug-Security";
+    public static final String REQUEST_ID_KEY = "requestId";
+
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final byte[] securityDebugToken;
+    private final double securityDebugSampleRate;
+
+    public RequestCorrelationFilter(
+            @Value("${app.logging.security-debug.token:}") String securityDebugToken,
+            @Value("${app.logging.security-debug.sample-rate:0}") double securityDebugSampleRate) {
+        this.securityDebugToken = securityDebugToken.isEmpty() ? null : securityDebugToken.getBytes(StandardCharsets.UTF_8);
+        this.securityDebugSampleRate = securityDebugSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        MDC.put(REQUEST_ID_KEY, requestId);
+        if (securityDebugRequested(request)) {
+            MDC.put(SecurityDebugTurboFilter.MDC_KEY, "true");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(REQUEST_ID_KEY);
+            MDC.remove(SecurityDebugTurboFilter.MDC_KEY);
+        }
+    }
+
+    private boolean securityDebugRequested(HttpServletRequest request) {
+        if (securityDebugSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < securityDebugSampleRate) {
+            return true;
+        }
+        String token = request.getHeader(SECURITY_DEBUG_HEADER);
+        return securityDebugToken != null && token != null
+                && MessageDigest.isEqual(securityDebugToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
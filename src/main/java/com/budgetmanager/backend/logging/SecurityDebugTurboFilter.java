@@ -0,0 +1,30 @@
+package com.budgetmanager.backend.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Turns on DEBUG for org.springframework.security, but only on threads handling a request that
+ * {@link RequestCorrelationFilter} picked for security debugging. The logger level itself stays
+ * at INFO, so other requests skip Spring Security's debug messages entirely.
+ *
+ * Registered in logback-spring.xml.
+ */
+public class SecurityDebugTurboFilter extends TurboFilter {
+
+    static final String MDC_KEY = "securityDebug";
+
+    private static final String SECURITY_LOGGERS = "org.springframework.security";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == Level.DEBUG && logger.getName().startsWith(SECURITY_LOGGERS) && MDC.get(MDC_KEY) != null) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
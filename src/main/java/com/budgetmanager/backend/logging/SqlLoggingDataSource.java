@@ -0,0 +1,182 @@
+package com.budgetmanager.backend.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs statements that take longer than slow-threshold-ms (WARN) and a sampled fraction of the
+ * rest (INFO), with their bind values and execution time, to the "sql" logger. Nothing is
+ * formatted for statements that are neither slow nor sampled; the per-statement cost is a proxy
+ * call per JDBC method and two nanoTime reads.
+ *
+ * Execution time runs until the driver returns, so for queries it excludes fetching the rows.
+ * Bind values of writes that mention a password column are not logged.
+ */
+public class SqlLoggingDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger("sql");
+
+    private static final int MAX_BIND_LENGTH = 100;
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+
+    public SqlLoggingDataSource(DataSource target, long slowThresholdMillis, double sampleRate) {
+        super(target);
+        this.slowThresholdNanos = slowThresholdMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> wrap(result, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> wrap(result, CallableStatement.class, (String) args[0]);
+                        case "createStatement" -> wrap(result, Statement.class, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    private Object wrap(Object statement, Class<?> type, String sql) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new StatementHandler(statement, sql));
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Object statement;
+        private final String sql;
+        private Object[] binds;
+        private int batchSize;
+
+        StatementHandler(Object statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                binds = null;
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.startsWith("execute")) {
+                return execute(method, args, name.equals("executeBatch") || name.equals("executeLargeBatch"));
+            }
+            return SqlLoggingDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args, boolean batch) throws Throwable {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = SqlLoggingDataSource.invoke(statement, method, args);
+                failed = false;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                boolean slow = elapsed >= slowThresholdNanos;
+                if (slow || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+                    String statementSql = sql != null ? sql : args != null && args.length > 0 ? String.valueOf(args[0]) : "";
+                    (slow ? log.atWarn() : log.atInfo())
+                            .addKeyValue("elapsedMicros", TimeUnit.NANOSECONDS.toMicros(elapsed))
+                            .addKeyValue("batchSize", batch ? batchSize : 0)
+                            .addKeyValue("failed", failed)
+                            .log("{} SQL in {} ms: {} binds={}", slow ? "Slow" : "Sampled",
+                                    TimeUnit.NANOSECONDS.toMillis(elapsed), statementSql, describeBinds(statementSql));
+                }
+                if (batch) {
+                    batchSize = 0;
+                }
+            }
+        }
+
+        private void bind(int index, Object value) {
+            if (binds == null) {
+                binds = new Object[Math.max(8, index)];
+            } else if (index > binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            binds[index - 1] = value;
+        }
+
+        private String describeBinds(String statementSql) {
+            if (binds == null) {
+                return "[]";
+            }
+            String lower = statementSql.toLowerCase(Locale.ROOT);
+            if (lower.contains("password") && !lower.startsWith("select")) {
+                return "[hidden]";
+            }
+            StringBuilder out = new StringBuilder("[");
+            int last = binds.length;
+            while (last > 0 && binds[last - 1] == null) {
+                last--;
+            }
+            for (int i = 0; i < last; i++) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                String value = String.valueOf(binds[i]);
+                out.append(value.length() > MAX_BIND_LENGTH ? value.substring(0, MAX_BIND_LENGTH) + "..." : value);
+            }
+            return out.append(']').toString();
+        }
+    }
+
+    // equals and hashCode compare the proxies themselves, as callers holding them expect
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class && !method.getName().equals("toString");
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
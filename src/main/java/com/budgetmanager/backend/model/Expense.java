@@ -5,10 +5,14 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,14 +26,44 @@ public class Expense {
     @NotBlank(message = "Expense name cannot be blank")
     private String name;
 
+    // Category name as sent and returned by the API; persisted through categoryRef
+    @Transient
     @NotBlank(message = "Expense category cannot be blank")
     private String category;
 
-    @Column(nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    private ExpenseCategory categoryRef;
+
+    @Column(name = "amount_minor", nullable = false)
+    @Convert(converter = MinorUnitsConverter.class)
     private double amount;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore 
+    @ToString.Exclude
     private User user;
-}
\ No newline at end of file
+
+    public String getCategory() {
+        if (category == null && categoryRef != null) {
+            category = categoryRef.getName();
+        }
+        return category;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Expense other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Expense.class.hashCode();
+    }
+}
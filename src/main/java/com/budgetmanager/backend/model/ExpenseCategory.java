@@ -0,0 +1,49 @@
+package com.budgetmanager.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// A user's category name, stored once and referenced from each expense by id
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "expense_category",
+        uniqueConstraints = @UniqueConstraint(name = "uk_expense_category_user_name", columnNames = {"user_id", "name"}))
+public class ExpenseCategory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    private User user;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ExpenseCategory other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return ExpenseCategory.class.hashCode();
+    }
+}
@@ -0,0 +1,29 @@
+package com.budgetmanager.backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Stores amounts as whole cents so sums are exact; the API keeps using decimal amounts
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Double, Long> {
+
+    public static final int SCALE = 100;
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * SCALE);
+    }
+
+    public static double toMajor(long minor) {
+        return (double) minor / SCALE;
+    }
+
+    @Override
+    public Long convertToDatabaseColumn(Double amount) {
+        return amount == null ? null : toMinor(amount);
+    }
+
+    @Override
+    public Double convertToEntityAttribute(Long minor) {
+        return minor == null ? null : toMajor(minor);
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.validation.constraints.Email;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,7 +16,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 
-@Data
+// equals/hashCode use the id only and toString skips associations, so neither can trigger lazy loads
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +35,7 @@ public class User implements UserDetails {
     private String username;
 
     @Column(nullable = false)
+    @ToString.Exclude
     private String password;
 
     @Column(nullable = false)
@@ -49,9 +55,38 @@ public class User implements UserDetails {
     @Column(nullable = true)
     private String phoneNumber;
 
+    // Bumped on password change / "log out everywhere"; tokens carrying an older value are rejected
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    // Segments 1..archivedSegments hold this user's archived expenses, see ExpenseArchive
+    @Column(nullable = false)
+    private int archivedSegments;
+
+    // Checked and bumped by the targeted updates in UserRepository
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @ToString.Exclude
     private List<Expense> expenses;
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        // getId() rather than the field, so Hibernate proxies compare without being initialized
+        return o instanceof User other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // Constant across persist (when the id is assigned), as entities in hash sets require
+        return User.class.hashCode();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_USER"));
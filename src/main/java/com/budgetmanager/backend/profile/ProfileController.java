@@ -1,112 +1,72 @@
 package com.budgetmanager.backend.profile;
 
 import com.budgetmanager.backend.dto.UpdateProfileRequest; // <-- DTO with all fields
-import com.budgetmanager.backend.dto.UserProfileDto;     // <-- DTO with all fields
 import com.budgetmanager.backend.file.FileStorageService;
 import com.budgetmanager.backend.model.User;
-import com.budgetmanager.backend.repository.UserRepository;
+import com.budgetmanager.backend.service.UserService;
 import jakarta.validation.Valid;                           // <-- Import validation
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.nio.file.Files;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/profile") // Base path for profile actions
 @RequiredArgsConstructor
 public class ProfileController {
 
-    private final UserRepository userRepository;
+    private static final Logger log = LoggerFactory.getLogger(ProfileController.class);
+
+    private final UserService userService;
     private final FileStorageService fileStorageService;
+    private final ProfilePhotoService profilePhotoService;
+    private final ProfileResponseCache profileResponseCache;
 
-    // Helper to get current user
+    // Helper to get current user (already loaded for this request by JwtAuthFilter)
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        return userService.currentUser();
     }
 
     // --- Endpoint to GET current user's profile details ---
+    // Served from the precomputed body; If-None-Match with the current ETag gets 304
     @GetMapping("") // Maps to GET /api/profile
-    public ResponseEntity<UserProfileDto> getUserProfile() {
-        User user = getCurrentUser();
-
-        String photoUrl = null;
-        if (user.getProfilePhotoPath() != null && !user.getProfilePhotoPath().isEmpty()) {
-            photoUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/api/profile/photo/")
-                    .path(user.getProfilePhotoPath())
-                    .toUriString();
+    public ResponseEntity<byte[]> getUserProfile(WebRequest webRequest) {
+        ProfileResponseCache.Entry profile = profileResponseCache.get(getCurrentUser(), baseUrl());
+        if (webRequest.checkNotModified(profile.etag())) {
+            return null;
         }
-
-        UserProfileDto profileDto = UserProfileDto.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .fullName(user.getFullName())
-                .email(user.getEmail())
-                .village(user.getVillage())
-                .phoneNumber(user.getPhoneNumber())
-                .profilePhotoUrl(photoUrl)
-                .build();
-
-        return ResponseEntity.ok(profileDto);
+        return profileResponse(profile);
     }
 
     // --- Endpoint to UPDATE current user's profile details ---
     @PutMapping("") // Maps to PUT /api/profile
-    public ResponseEntity<UserProfileDto> updateUserProfile(
+    public ResponseEntity<?> updateUserProfile(
             @Valid @RequestBody UpdateProfileRequest updateRequest
     ) {
         User user = getCurrentUser();
 
-        // Update fields if they are provided in the request
-        if (updateRequest.getFullName() != null) {
-            user.setFullName(updateRequest.getFullName());
-        }
-        if (updateRequest.getEmail() != null) {
-            // Optional: Add validation if email already exists for another user
-            user.setEmail(updateRequest.getEmail());
-        }
-        // --- ADDED LOGIC TO UPDATE VILLAGE AND PHONE ---
-        if (updateRequest.getVillage() != null) {
-            user.setVillage(updateRequest.getVillage());
-        }
-        if (updateRequest.getPhoneNumber() != null) {
-            user.setPhoneNumber(updateRequest.getPhoneNumber());
+        // Only the fields provided in the request are written
+        try {
+            userService.updateProfile(user, updateRequest);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(409).body(Map.of("error", "Email is already in use"));
         }
-        // ---
 
-        User savedUser = userRepository.save(user);
-
-        // Re-construct the DTO to return updated info
-        String photoUrl = null;
-        if (savedUser.getProfilePhotoPath() != null && !savedUser.getProfilePhotoPath().isEmpty()) {
-            photoUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/api/profile/photo/")
-                    .path(savedUser.getProfilePhotoPath())
-                    .toUriString();
-        }
-        UserProfileDto profileDto = UserProfileDto.builder()
-                .id(savedUser.getId())
-                .username(savedUser.getUsername())
-                .fullName(savedUser.getFullName())
-                .email(savedUser.getEmail())
-                .village(savedUser.getVillage())         // Ensure these are included
-                .phoneNumber(savedUser.getPhoneNumber()) // Ensure these are included
-                .profilePhotoUrl(photoUrl)
-                .build();
-
-        return ResponseEntity.ok(profileDto);
+        // The updated profile is both the response and the new cache entry
+        return profileResponse(profileResponseCache.refresh(user, baseUrl()));
     }
 
 
@@ -120,13 +80,21 @@ public class ProfileController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Invalid file type or empty file. Only images are allowed."));
             }
 
-            if (user.getProfilePhotoPath() != null && !user.getProfilePhotoPath().isEmpty()) {
-                fileStorageService.delete(user.getProfilePhotoPath());
+            String previousPath = user.getProfilePhotoPath();
+            String filename = fileStorageService.store(file, user.getUsername());
+            try {
+                userService.updateProfilePhotoPath(user, filename);
+            } catch (OptimisticLockingFailureException e) {
+                fileStorageService.delete(filename);
+                return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
             }
 
-            String filename = fileStorageService.store(file, user.getUsername());
-            user.setProfilePhotoPath(filename);
-            userRepository.save(user);
+            profileResponseCache.evict(user.getId());
+
+            // Only once the new path is saved, so a failed update never leaves the user without a photo
+            if (previousPath != null && !previousPath.isEmpty() && !previousPath.equals(filename)) {
+                fileStorageService.delete(previousPath);
+            }
 
             String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path("/api/profile/photo/")
@@ -139,43 +107,34 @@ public class ProfileController {
                     "fileUrl", fileDownloadUri
             ));
         } catch (Exception e) {
-            System.err.println("Upload failed for user " + user.getUsername() + ": " + e.getMessage());
+            log.error("Upload failed for user {}", user.getUsername(), e);
             return ResponseEntity.status(500).body(Map.of("error", "Could not upload the file: " + e.getMessage()));
         }
     }
 
     // --- Endpoint to GET (download/view) profile photo ---
+    // Read on the photo executor; the Tomcat thread is released while the file loads
     @GetMapping("/photo/{username}/{filename:.+}")
-    public ResponseEntity<Resource> getProfilePhoto(@PathVariable String username, @PathVariable String filename) {
-        try {
-            String relativePath = username + "/" + filename;
-            Resource file = fileStorageService.loadAsResource(relativePath);
-            String contentType = Files.probeContentType(file.getFile().toPath());
-            if (contentType == null) contentType = "application/octet-stream";
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getFilename() + "\"")
-                    .body(file);
-        } catch (Exception e) {
-            System.err.println("Could not get file: " + username + "/" + filename + " - " + e.getMessage());
-            return ResponseEntity.notFound().build();
-        }
+    public CompletableFuture<ResponseEntity<byte[]>> getProfilePhoto(@PathVariable String username, @PathVariable String filename) {
+        return profilePhotoService.load(username + "/" + filename);
     }
 
      // --- Endpoint to GET User's Photo URL ---
     @GetMapping("/photo-url")
-    public ResponseEntity<?> getProfilePhotoUrl() {
-        User user = getCurrentUser();
-        if (user.getProfilePhotoPath() == null || user.getProfilePhotoPath().isEmpty()) {
-            return ResponseEntity.ok(Map.of("photoUrl", (Object) null));
-        }
+    public ResponseEntity<byte[]> getProfilePhotoUrl() {
+        ProfileResponseCache.Entry profile = profileResponseCache.get(getCurrentUser(), baseUrl());
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(profile.photoUrl());
+    }
 
-        String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/api/profile/photo/")
-                .path(user.getProfilePhotoPath())
-                .toUriString();
+    private static ResponseEntity<byte[]> profileResponse(ProfileResponseCache.Entry profile) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(profile.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(profile.profile());
+    }
 
-        return ResponseEntity.ok(Map.of("photoUrl", fileDownloadUri));
+    private static String baseUrl() {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.budgetmanager.backend.profile;
+
+import com.budgetmanager.backend.file.FileStorageService;
+import com.budgetmanager.backend.logging.MdcPropagation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads profile photos on a dedicated bounded executor, so slow disks or bursts of avatar loads
+ * tie up photo threads rather than the Tomcat workers serving the API. When every photo thread
+ * is busy and the queue is full, requests get 503 immediately instead of waiting; a read that
+ * takes longer than the timeout also answers 503.
+ */
+public class ProfilePhotoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfilePhotoService.class);
+
+    private final FileStorageService fileStorageService;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    public ProfilePhotoService(FileStorageService fileStorageService, ExecutorService executor, long timeoutMillis,
+                               MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+        this.rejected = Counter.builder("profile.photos.rejected")
+                .description("Photo requests turned away because the photo executor was saturated")
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("profile.photos.timed.out")
+                .description("Photo reads that did not finish within app.photos.timeout-ms")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<ResponseEntity<byte[]>> load(String relativePath) {
+        try {
+            return CompletableFuture.supplyAsync(MdcPropagation.propagate(() -> read(relativePath)), executor)
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        if (e instanceof TimeoutException) {
+                            timedOut.increment();
+                            return unavailable();
+                        }
+                        log.debug("Could not get file: {} - {}", relativePath, e.getMessage());
+                        return ResponseEntity.notFound().build();
+                    });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(unavailable());
+        }
+    }
+
+    private ResponseEntity<byte[]> read(String relativePath) {
+        try {
+            Resource file = fileStorageService.loadAsResource(relativePath);
+            String contentType = Files.probeContentType(file.getFile().toPath());
+            if (contentType == null) contentType = "application/octet-stream";
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(contentType))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getFilename() + "\"")
+                    .body(file.getContentAsByteArray());
+        } catch (Exception e) {
+            log.debug("Could not get file: {} - {}", relativePath, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private static ResponseEntity<byte[]> unavailable() {
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.budgetmanager.backend.profile;
+
+import com.budgetmanager.backend.dto.UserProfileDto;
+import com.budgetmanager.backend.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Serialized GET /api/profile and /api/profile/photo-url bodies per user, with an ETag.
+ *
+ * An entry is only used while it matches the user's row version and the base URL the photo
+ * link was built with, so any profile write (here or on another instance) bumps the version and
+ * the next read rebuilds it. Writes on this instance also refresh or drop the entry directly.
+ */
+@Component
+public class ProfileResponseCache {
+
+    private static final String PHOTO_PATH = "/api/profile/photo/";
+    private static final int EVICTION_BATCH_DIVISOR = 100;
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public record Entry(long version, String baseUrl, byte[] profile, byte[] photoUrl, String etag) {}
+
+    public ProfileResponseCache(ObjectMapper objectMapper,
+                                @Value("${app.profile.cache.max-entries:100000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    public Entry get(User user, String baseUrl) {
+        Entry entry = entries.get(user.getId());
+        if (entry != null && entry.version() == user.getVersion() && entry.baseUrl().equals(baseUrl)) {
+            return entry;
+        }
+        return refresh(user, baseUrl);
+    }
+
+    // Rebuilds the entry from the in-memory user, e.g. right after an update
+    public Entry refresh(User user, String baseUrl) {
+        String photoUrl = null;
+        if (user.getProfilePhotoPath() != null && !user.getProfilePhotoPath().isEmpty()) {
+            photoUrl = UriComponentsBuilder.fromUriString(baseUrl)
+                    .path(PHOTO_PATH)
+                    .path(user.getProfilePhotoPath())
+                    .toUriString();
+        }
+        UserProfileDto profileDto = UserProfileDto.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .fullName(user.getFullName())
+                .email(user.getEmail())
+                .village(user.getVillage())
+                .phoneNumber(user.getPhoneNumber())
+                .profilePhotoUrl(photoUrl)
+                .build();
+
+        try {
+            byte[] profile = objectMapper.writeValueAsBytes(profileDto);
+            byte[] photo = objectMapper.writeValueAsBytes(Collections.singletonMap("photoUrl", photoUrl));
+            CRC32 crc = new CRC32();
+            crc.update(profile);
+            Entry entry = new Entry(user.getVersion(), baseUrl, profile, photo,
+                    "\"" + user.getVersion() + "-" + Long.toHexString(crc.getValue()) + "\"");
+            if (entries.size() >= maxEntries && !entries.containsKey(user.getId())) {
+                evictSome();
+            }
+            entries.put(user.getId(), entry);
+            return entry;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize profile of user " + user.getId(), e);
+        }
+    }
+
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Drops a small batch of arbitrary entries, so a full cache costs a few rebuilds rather
+    // than every active user's next read at once
+    private void evictSome() {
+        int batch = Math.max(1, maxEntries / EVICTION_BATCH_DIVISOR);
+        Iterator<Long> userIds = entries.keySet().iterator();
+        while (batch-- > 0 && userIds.hasNext()) {
+            userIds.next();
+            userIds.remove();
+        }
+    }
+}
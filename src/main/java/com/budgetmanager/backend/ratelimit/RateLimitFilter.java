@@ -0,0 +1,125 @@
+package com.budgetmanager.backend.ratelimit;
+
+import com.budgetmanager.backend.model.User;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limits for the endpoints that cost bcrypt CPU or DB writes.
+ * Runs right after JwtAuthFilter so authenticated requests are keyed by user id;
+ * everything else is keyed by client IP. Idle buckets are swept every idle-sweep-seconds on
+ * a background thread, never by a request.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final RateLimiter loginLimiter;
+    private final RateLimiter registerLimiter;
+    private final RateLimiter expenseWriteLimiter;
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimitFilter(
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.login.capacity:10}") long loginCapacity,
+            @Value("${app.rate-limit.login.refill-per-minute:10}") long loginRefill,
+            @Value("${app.rate-limit.register.capacity:5}") long registerCapacity,
+            @Value("${app.rate-limit.register.refill-per-minute:5}") long registerRefill,
+            @Value("${app.rate-limit.expenses.capacity:60}") long expenseCapacity,
+            @Value("${app.rate-limit.expenses.refill-per-minute:120}") long expenseRefill,
+            @Value("${app.rate-limit.idle-sweep-seconds:60}") long sweepSeconds
+    ) {
+        this.enabled = enabled;
+        this.loginLimiter = new RateLimiter(loginCapacity, loginRefill);
+        this.registerLimiter = new RateLimiter(registerCapacity, registerRefill);
+        this.expenseWriteLimiter = new RateLimiter(expenseCapacity, expenseRefill);
+        this.sweeper = enabled ? startSweeper(sweepSeconds) : null;
+    }
+
+    private ScheduledExecutorService startSweeper(long sweepSeconds) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            loginLimiter.sweep();
+            registerLimiter.sweep();
+            expenseWriteLimiter.sweep();
+        }, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RateLimiter limiter = enabled ? limiterFor(request) : null;
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimiter.Decision decision = limiter.tryAcquire(clientKey(request));
+        response.setHeader("X-RateLimit-Limit", Long.toString(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", Long.toString(decision.resetSeconds()));
+
+        if (!decision.allowed()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", Long.toString(decision.resetSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests, please try again later\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimiter limiterFor(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (path) {
+            case "/api/auth/login" -> loginLimiter;
+            case "/api/auth/register" -> registerLimiter;
+            case "/api/data/expenses" -> expenseWriteLimiter;
+            default -> null;
+        };
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return "user:" + user.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,78 @@
+package com.budgetmanager.backend.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket, one per key.
+ *
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time" (the GCRA form of a
+ * token bucket): a request is allowed while that time is no more than {@code capacity - 1}
+ * refill intervals ahead of now, and each allowed request pushes it one interval further.
+ * Updates are a CAS loop, so there are no locks and no per-bucket objects beyond the AtomicLong.
+ * Buckets that have fully refilled carry no state; {@link #sweep()} drops them and is meant to
+ * run off the request path (RateLimitFilter schedules it).
+ */
+public class RateLimiter {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public record Decision(boolean allowed, long limit, long remaining, long resetSeconds) {}
+
+    public RateLimiter(long capacity, long refillPerMinute) {
+        this(capacity, refillPerMinute, System::nanoTime);
+    }
+
+    RateLimiter(long capacity, long refillPerMinute, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("Rate limit capacity and refill must be positive");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.toleranceNanos = intervalNanos * (capacity - 1);
+        this.nanoClock = nanoClock;
+    }
+
+    public Decision tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long tat = bucket.get();
+            long base = Math.max(tat, now);
+            if (base - now > toleranceNanos) {
+                // Empty: the next token arrives once the arrival time falls back within tolerance
+                return new Decision(false, capacity, 0, toSeconds(base - toleranceNanos - now));
+            }
+            long next = base + intervalNanos;
+            if (bucket.compareAndSet(tat, next)) {
+                long remaining = (now + toleranceNanos - next) / intervalNanos + 1;
+                return new Decision(true, capacity, Math.max(0, remaining), toSeconds(next - now));
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    // Idle buckets have an arrival time in the past, which is the same as a fresh bucket
+    public void sweep() {
+        long now = nanoClock.getAsLong();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(0, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,33 @@
+package com.budgetmanager.backend.report;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Aggregates for one chunk of users; chunks are merged into the final report
+class PartialReport {
+
+    long users;
+    long expenses;
+    double totalBudget;
+    long totalSpentMinor;
+    final Map<String, Long> spentByCategoryMinor = new HashMap<>();
+    final List<OverBudget> overBudget = new ArrayList<>();
+
+    record OverBudget(long userId, String username, double budget, long spentMinor) {
+    }
+
+    void addCategory(String category, long spentMinor) {
+        spentByCategoryMinor.merge(category, spentMinor, Long::sum);
+    }
+
+    void merge(PartialReport other) {
+        users += other.users;
+        expenses += other.expenses;
+        totalBudget += other.totalBudget;
+        totalSpentMinor += other.totalSpentMinor;
+        other.spentByCategoryMinor.forEach(this::addCategory);
+        overBudget.addAll(other.overBudget);
+    }
+}
@@ -0,0 +1,26 @@
+package com.budgetmanager.backend.report;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * System-wide spending snapshot written by {@link SpendingReportJob}. Amounts are in the
+ * app's decimal currency units; categories are merged by name across users.
+ */
+public record SpendingReport(
+        Instant generatedAt,
+        long users,
+        long expenses,
+        double totalBudget,
+        double totalSpent,
+        Map<String, Double> spentByCategory, // Largest first
+        long usersOverBudget,
+        List<OverBudgetUser> topOverBudget, // Largest overspend first
+        int chunks,
+        int parallelism,
+        long elapsedMillis) {
+
+    public record OverBudgetUser(long userId, String username, double budget, double spent) {
+    }
+}
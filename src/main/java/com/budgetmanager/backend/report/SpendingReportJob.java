@@ -0,0 +1,207 @@
+package com.budgetmanager.backend.report;
+
+import com.budgetmanager.backend.archive.ExpenseArchive;
+import com.budgetmanager.backend.archive.ExpenseSegment;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the nightly {@link SpendingReport}. Users are split into id ranges of chunk-size ids,
+ * and each range is handled by one task on a fixed pool of `parallelism` threads: three
+ * streamed queries (users, category names, per-user per-category sums grouped in the database
+ * from idx_expense_user_category_amount) aggregated into a {@link PartialReport}. Partials are
+ * merged in range order. Archived expenses are added from the summary headers of each user's
+ * segments, without inflating their columns. Each task runs in its own read-only transaction,
+ * so with replica routing enabled the work lands on the replicas. Expenses kept on
+ * app.sharding shards are not included.
+ */
+public class SpendingReportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SpendingReportJob.class);
+
+    static final String USER_ID_RANGE = "SELECT MIN(id), MAX(id) FROM _user";
+    static final String USERS_IN_RANGE = "SELECT id, username, budget, archived_segments FROM _user WHERE id BETWEEN ? AND ?";
+    static final String CATEGORIES_IN_RANGE = "SELECT id, name FROM expense_category WHERE user_id BETWEEN ? AND ?";
+    static final String SPEND_IN_RANGE = "SELECT user_id, category_id, SUM(amount_minor), COUNT(*) FROM expense "
+            + "WHERE user_id BETWEEN ? AND ? GROUP BY user_id, category_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ExpenseArchive archive;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int overBudgetLimit;
+    private final Path outputDir;
+
+    public SpendingReportJob(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                             ExpenseArchive archive, int parallelism, int chunkSize, int fetchSize, int overBudgetLimit, Path outputDir) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.archive = archive;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.overBudgetLimit = overBudgetLimit;
+        this.outputDir = outputDir;
+    }
+
+    // Generates the report and writes it to spending-report-<date>.json in the output directory
+    public Path run() {
+        SpendingReport report = generate();
+        try {
+            Files.createDirectories(outputDir);
+            String date = LocalDate.ofInstant(report.generatedAt(), ZoneOffset.UTC).toString();
+            Path target = outputDir.resolve("spending-report-" + date + ".json");
+            Path temp = Files.createTempFile(outputDir, "spending-report-", ".tmp");
+            objectMapper.writeValue(temp.toFile(), report);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Spending report written to {}: {} users, {} expenses in {} ms",
+                    target, report.users(), report.expenses(), report.elapsedMillis());
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write spending report", e);
+        }
+    }
+
+    public SpendingReport generate() {
+        long start = System.nanoTime();
+        Instant generatedAt = Instant.now();
+
+        long[] idRange = jdbcTemplate.queryForObject(USER_ID_RANGE, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        PartialReport total = new PartialReport();
+        int chunks = 0;
+        if (idRange != null && idRange[1] > 0) {
+            List<long[]> ranges = new ArrayList<>();
+            for (long from = idRange[0]; from <= idRange[1]; from += chunkSize) {
+                ranges.add(new long[]{from, Math.min(idRange[1], from + chunkSize - 1)});
+            }
+            chunks = ranges.size();
+            mergeChunks(ranges, total);
+        }
+
+        Map<String, Double> spentByCategory = new LinkedHashMap<>();
+        total.spentByCategoryMinor.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> spentByCategory.put(e.getKey(), MinorUnitsConverter.toMajor(e.getValue())));
+        List<SpendingReport.OverBudgetUser> topOverBudget = total.overBudget.stream()
+                .sorted(Comparator.comparingDouble((PartialReport.OverBudget o) ->
+                        MinorUnitsConverter.toMajor(o.spentMinor()) - o.budget()).reversed())
+                .limit(overBudgetLimit)
+                .map(o -> new SpendingReport.OverBudgetUser(o.userId(), o.username(), o.budget(),
+                        MinorUnitsConverter.toMajor(o.spentMinor())))
+                .toList();
+
+        return new SpendingReport(generatedAt, total.users, total.expenses, total.totalBudget,
+                MinorUnitsConverter.toMajor(total.totalSpentMinor), spentByCategory, total.overBudget.size(),
+                topOverBudget, chunks, parallelism, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void mergeChunks(List<long[]> ranges, PartialReport total) {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()), task -> {
+            Thread thread = new Thread(task, "spending-report-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<PartialReport>> partials = new ArrayList<>();
+            for (long[] range : ranges) {
+                partials.add(executor.submit(() -> processChunk(range[0], range[1])));
+            }
+            for (Future<PartialReport> partial : partials) {
+                total.merge(partial.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Spending report interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Spending report chunk failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    PartialReport processChunk(long fromId, long toId) {
+        return readOnlyTransaction.execute(status -> {
+            int span = (int) (toId - fromId + 1);
+            String[] usernames = new String[span];
+            double[] budgets = new double[span];
+            long[] spent = new long[span];
+            int[] archivedSegments = new int[span];
+            PartialReport partial = new PartialReport();
+
+            jdbcTemplate.query(USERS_IN_RANGE, rs -> {
+                int offset = (int) (rs.getLong(1) - fromId);
+                usernames[offset] = rs.getString(2);
+                budgets[offset] = rs.getDouble(3);
+                archivedSegments[offset] = rs.getInt(4);
+            }, fromId, toId);
+
+            Map<Integer, String> categoryNames = new HashMap<>();
+            jdbcTemplate.query(CATEGORIES_IN_RANGE, rs -> {
+                categoryNames.put(rs.getInt(1), rs.getString(2));
+            }, fromId, toId);
+
+            jdbcTemplate.query(SPEND_IN_RANGE, rs -> {
+                long amount = rs.getLong(3);
+                spent[(int) (rs.getLong(1) - fromId)] += amount;
+                partial.addCategory(categoryNames.get(rs.getInt(2)), amount);
+                partial.expenses += rs.getLong(4);
+            }, fromId, toId);
+
+            for (int offset = 0; offset < span; offset++) {
+                if (usernames[offset] == null) {
+                    continue;
+                }
+                for (int segment = 1; segment <= archivedSegments[offset]; segment++) {
+                    for (ExpenseSegment.CategorySummary category : archive.categories(fromId + offset, segment)) {
+                        spent[offset] += category.totalMinor();
+                        partial.addCategory(category.name(), category.totalMinor());
+                        partial.expenses += category.rows();
+                    }
+                }
+                partial.users++;
+                partial.totalBudget += budgets[offset];
+                partial.totalSpentMinor += spent[offset];
+                // A budget of 0 means none was set
+                if (budgets[offset] > 0 && MinorUnitsConverter.toMajor(spent[offset]) > budgets[offset]) {
+                    partial.overBudget.add(new PartialReport.OverBudget(fromId + offset, usernames[offset],
+                            budgets[offset], spent[offset]));
+                }
+            }
+            return partial;
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.budgetmanager.backend.repository;
+
+import com.budgetmanager.backend.model.ExpenseCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExpenseCategoryRepository extends JpaRepository<ExpenseCategory, Integer> {
+
+    Optional<ExpenseCategory> findByUserIdAndName(Long userId, String name);
+}
@@ -1,7 +1,10 @@
 package com.budgetmanager.backend.repository;
 
 import com.budgetmanager.backend.model.Expense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,5 +12,11 @@ import java.util.List;
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
-    List<Expense> findAllByUserId(Long userId);
-}
\ No newline at end of file
+    // Served by idx_expense_user_listing; category names come in the same query
+    @Query("select e from Expense e join fetch e.categoryRef where e.user.id = :userId order by e.id")
+    List<Expense> findAllByUserId(@Param("userId") Long userId);
+
+    // Newest first, from the same index read backwards; the page size caps the rows
+    @Query("select e from Expense e join fetch e.categoryRef where e.user.id = :userId order by e.id desc")
+    List<Expense> findRecentByUserId(@Param("userId") Long userId, Pageable pageable);
+}
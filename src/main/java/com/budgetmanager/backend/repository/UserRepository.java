@@ -2,15 +2,60 @@ package com.budgetmanager.backend.repository;
 
 import com.budgetmanager.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    
+
     // This is the correct version
     Optional<User> findByUsername(String username);
  // Inside UserRepository.java
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    // Only the token generation, used by TokenGenerationCache on a miss
+    @Query("select u.tokenVersion from User u where u.username = :username")
+    Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1, u.version = u.version + 1 where u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    // The updates below change only their own columns and apply only if the row is still at
+    // the given version; they return 0 when someone else changed the user in between.
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.budget = :budget, u.version = u.version + 1 "
+            + "where u.id = :id and u.version = :version")
+    int updateBudget(@Param("id") Long id, @Param("version") long version, @Param("budget") double budget);
+
+    // Null arguments leave the column as it is
+    @Modifying
+    @Transactional
+    @Query("update User u set u.fullName = coalesce(:fullName, u.fullName), u.email = coalesce(:email, u.email), "
+            + "u.village = coalesce(:village, u.village), u.phoneNumber = coalesce(:phoneNumber, u.phoneNumber), "
+            + "u.version = u.version + 1 where u.id = :id and u.version = :version")
+    int updateProfile(@Param("id") Long id, @Param("version") long version,
+                      @Param("fullName") String fullName, @Param("email") String email,
+                      @Param("village") String village, @Param("phoneNumber") String phoneNumber);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.profilePhotoPath = :path, u.version = u.version + 1 "
+            + "where u.id = :id and u.version = :version")
+    int updateProfilePhotoPath(@Param("id") Long id, @Param("version") long version, @Param("path") String path);
+
+    // Also bumps the token generation, revoking tokens issued under the old password
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password, u.tokenVersion = u.tokenVersion + 1, u.version = u.version + 1 "
+            + "where u.id = :id and u.version = :version")
+    int updatePassword(@Param("id") Long id, @Param("version") long version, @Param("password") String password);
+}
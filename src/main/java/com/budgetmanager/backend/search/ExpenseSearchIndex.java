@@ -0,0 +1,336 @@
+package com.budgetmanager.backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory search over one user's expense names and categories.
+ *
+ * Every lower-cased name and category is split into trigrams, plus the one- and two-letter
+ * prefixes of each word. Each key maps to a sorted list of document slots. A query term of
+ * three or more characters matches anywhere inside a name or category: the trigram lists are
+ * intersected and each candidate is checked with a real substring test. Shorter terms match
+ * word prefixes. All terms must match.
+ *
+ * Hits are ranked by how well each term matched (whole word, word prefix, substring; name over
+ * category), then newest first. Deleted expenses are tombstoned and squeezed out once they
+ * outnumber live ones. Not thread-safe; {@link ExpenseSearchService} guards each index.
+ */
+public class ExpenseSearchIndex {
+
+    public record Hit(long id, String name, String category, double amount) {
+    }
+
+    public record Page(int total, List<Hit> hits) {
+    }
+
+    private static final long PREFIX_KEY = 1L << 48;
+
+    // Rough per-object costs for the memory estimate (compressed oops, 64-bit JVM)
+    private static final int DOC_OVERHEAD_BYTES = 120;
+    private static final int POSTING_LIST_OVERHEAD_BYTES = 80;
+
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private String[] categories = new String[16];
+    private String[] lowerNames = new String[16];
+    private String[] lowerCategories = new String[16];
+    private double[] amounts = new double[16];
+    private boolean[] deleted = new boolean[16];
+    private int size;
+    private int deletedCount;
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private long postingEntries;
+    private long textBytes;
+
+    public void add(long id, String name, String category, double amount) {
+        if (slotById.containsKey(id)) {
+            return;
+        }
+        int slot = size++;
+        if (slot == ids.length) {
+            int capacity = slot + (slot >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            lowerNames = Arrays.copyOf(lowerNames, capacity);
+            lowerCategories = Arrays.copyOf(lowerCategories, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+        }
+        String lowerName = normalize(name);
+        String lowerCategory = normalize(category);
+        ids[slot] = id;
+        names[slot] = name;
+        categories[slot] = category;
+        // toLowerCase returns the same instance when nothing changes, so these are often free
+        lowerNames[slot] = lowerName;
+        lowerCategories[slot] = lowerCategory;
+        amounts[slot] = amount;
+        slotById.put(id, slot);
+        textBytes += stringBytes(name) + stringBytes(category)
+                + (lowerName != name ? stringBytes(lowerName) : 0)
+                + (lowerCategory != category ? stringBytes(lowerCategory) : 0);
+
+        indexText(lowerName, slot);
+        indexText(lowerCategory, slot);
+    }
+
+    public void remove(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        deleted[slot] = true;
+        deletedCount++;
+        if (deletedCount > size - deletedCount) {
+            compact();
+        }
+    }
+
+    public int size() {
+        return size - deletedCount;
+    }
+
+    // Approximate heap footprint, used to bound the total across users
+    public long estimatedBytes() {
+        return (long) ids.length * (8 + 4 * 4 + 8 + 1)
+                + (long) size * DOC_OVERHEAD_BYTES
+                + textBytes
+                + (long) postings.size() * POSTING_LIST_OVERHEAD_BYTES
+                + postingEntries * 4;
+    }
+
+    public Page search(String query, int page, int pageSize) {
+        String[] terms = normalize(query).trim().split("\\s+");
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            return new Page(0, List.of());
+        }
+
+        Candidates candidates = null;
+        for (String term : terms) {
+            Candidates matches = candidatesFor(term);
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.retainAll(matches.slots, matches.size);
+            }
+            if (candidates.size == 0) {
+                return new Page(0, List.of());
+            }
+        }
+
+        // Score each candidate; pack (score, slot) into one long so a primitive sort ranks them
+        long[] ranked = new long[candidates.size];
+        int matched = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            int slot = candidates.slots[i];
+            if (deleted[slot]) {
+                continue;
+            }
+            int score = score(slot, terms);
+            if (score > 0) {
+                ranked[matched++] = ((long) score << 32) | slot;
+            }
+        }
+        Arrays.sort(ranked, 0, matched);
+
+        // As a long, so a huge page number lands past the end instead of overflowing
+        long from = (long) page * pageSize;
+        if (from >= matched) {
+            return new Page(matched, List.of());
+        }
+        int end = (int) Math.min(matched, from + pageSize);
+        List<Hit> hits = new ArrayList<>(end - (int) from);
+        for (int i = (int) from; i < end; i++) {
+            // Highest score and, within a score, latest slot (newest expense) first
+            int slot = (int) ranked[matched - 1 - i];
+            hits.add(new Hit(ids[slot], names[slot], categories[slot], amounts[slot]));
+        }
+        return new Page(matched, hits);
+    }
+
+    private Candidates candidatesFor(String term) {
+        if (term.length() < 3) {
+            return postingsFor(prefixKey(term));
+        }
+        Candidates result = null;
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            if (result == null) {
+                result = postingsFor(trigramKey(term, i));
+            } else {
+                IntList list = postings.get(trigramKey(term, i));
+                if (list == null) {
+                    result.retainAll(IntList.EMPTY, 0);
+                } else {
+                    result.retainAll(list.values, list.size);
+                }
+            }
+            if (result.size == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private Candidates postingsFor(long key) {
+        IntList list = postings.get(key);
+        return list == null ? new Candidates(IntList.EMPTY, 0) : new Candidates(list.values, list.size);
+    }
+
+    // Per term: 4 whole word, 3 word prefix, 2 substring in the name; 1 for any match in the category
+    private int score(int slot, String[] terms) {
+        String name = lowerNames[slot];
+        String category = lowerCategories[slot];
+        int score = 0;
+        for (String term : terms) {
+            int nameScore = matchScore(name, term);
+            int termScore = nameScore > 0 ? nameScore + 1 : (matchScore(category, term) > 0 ? 1 : 0);
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    // 3 whole word, 2 word prefix, 1 elsewhere (terms under 3 chars only count at word starts)
+    private static int matchScore(String text, String term) {
+        int best = 0;
+        for (int at = text.indexOf(term); at >= 0; at = text.indexOf(term, at + 1)) {
+            boolean wordStart = at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1));
+            int end = at + term.length();
+            boolean wordEnd = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            int score = wordStart ? (wordEnd ? 3 : 2) : (term.length() >= 3 ? 1 : 0);
+            best = Math.max(best, score);
+            if (best == 3) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private void indexText(String text, int slot) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            post(trigramKey(text, i), slot);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                post(prefixKey(text.substring(i, i + 1)), slot);
+                if (i + 1 < text.length() && Character.isLetterOrDigit(text.charAt(i + 1))) {
+                    post(prefixKey(text.substring(i, i + 2)), slot);
+                }
+            }
+        }
+    }
+
+    private void post(long key, int slot) {
+        IntList list = postings.computeIfAbsent(key, k -> new IntList());
+        // Slots only grow, so a repeat of the same key for this document is always the last entry
+        if (list.size == 0 || list.values[list.size - 1] != slot) {
+            list.add(slot);
+            postingEntries++;
+        }
+    }
+
+    private void compact() {
+        long[] oldIds = ids;
+        String[] oldNames = names;
+        String[] oldCategories = categories;
+        double[] oldAmounts = amounts;
+        boolean[] oldDeleted = deleted;
+        int oldSize = size;
+
+        ids = new long[16];
+        names = new String[16];
+        categories = new String[16];
+        lowerNames = new String[16];
+        lowerCategories = new String[16];
+        amounts = new double[16];
+        deleted = new boolean[16];
+        size = 0;
+        deletedCount = 0;
+        slotById.clear();
+        postings.clear();
+        postingEntries = 0;
+        textBytes = 0;
+        for (int slot = 0; slot < oldSize; slot++) {
+            if (!oldDeleted[slot]) {
+                add(oldIds[slot], oldNames[slot], oldCategories[slot], oldAmounts[slot]);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long stringBytes(String text) {
+        return 40 + text.length();
+    }
+
+    private static long trigramKey(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    private static long prefixKey(String prefix) {
+        long key = PREFIX_KEY | prefix.charAt(0);
+        return prefix.length() == 1 ? key : key | ((long) prefix.charAt(1) << 16) | (1L << 47);
+    }
+
+    /**
+     * Sorted slots matching the terms so far. Starts out reading a posting list's own array;
+     * the first intersection copies into a buffer of its own, and later ones narrow that
+     * buffer in place.
+     */
+    private static final class Candidates {
+        int[] slots;
+        int size;
+        private boolean shared = true;
+
+        Candidates(int[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        void retainAll(int[] other, int otherSize) {
+            // Writes never overtake reads (n <= i), so the owned buffer can be its own output
+            int[] out = shared ? new int[Math.min(size, otherSize)] : slots;
+            int n = 0;
+            for (int i = 0, j = 0; i < size && j < otherSize; ) {
+                if (slots[i] < other[j]) {
+                    i++;
+                } else if (slots[i] > other[j]) {
+                    j++;
+                } else {
+                    out[n++] = slots[i];
+                    i++;
+                    j++;
+                }
+            }
+            slots = out;
+            size = n;
+            shared = false;
+        }
+    }
+
+    private static final class IntList {
+        static final int[] EMPTY = new int[0];
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
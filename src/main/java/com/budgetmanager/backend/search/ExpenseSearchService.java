@@ -0,0 +1,164 @@
+package com.budgetmanager.backend.search;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.service.ExpenseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an {@link ExpenseSearchIndex} per user who has searched recently. An index is built
+ * from the user's expenses on their first search, then kept current by the add and delete
+ * endpoints on this instance. Because other instances' writes are not seen, an index is
+ * rebuilt once it is older than app.search.rebuild-after-seconds.
+ *
+ * Total index memory is capped at app.search.max-memory-mb; past that, the indexes of the
+ * least recently used users are dropped (they are rebuilt if those users search again).
+ */
+@Service
+public class ExpenseSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseSearchService.class);
+
+    private static final class Entry {
+        final Long userId;
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        final ExpenseSearchIndex index = new ExpenseSearchIndex();
+        final long builtAt = System.nanoTime();
+        volatile boolean ready;
+        long estimatedBytes;
+
+        Entry(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private final ExpenseService expenseService;
+    private final long maxMemoryBytes;
+    private final long rebuildAfterNanos;
+
+    // Access-ordered, so iteration starts at the least recently used user
+    private final LinkedHashMap<Long, Entry> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ExpenseSearchService(ExpenseService expenseService,
+                                @Value("${app.search.max-memory-mb:64}") long maxMemoryMb,
+                                @Value("${app.search.rebuild-after-seconds:300}") long rebuildAfterSeconds) {
+        this.expenseService = expenseService;
+        this.maxMemoryBytes = maxMemoryMb * 1024 * 1024;
+        this.rebuildAfterNanos = TimeUnit.SECONDS.toNanos(rebuildAfterSeconds);
+    }
+
+    public ExpenseSearchIndex.Page search(Long userId, String query, int page, int size) {
+        Entry entry = entryFor(userId);
+        entry.lock.readLock().lock();
+        try {
+            return entry.index.search(query, page, size);
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    // Indexes that have not been built yet are left alone; the build will pick the row up
+    public void onExpenseAdded(Long userId, Expense expense) {
+        update(userId, index -> index.add(expense.getId(), expense.getName(), expense.getCategory(), expense.getAmount()));
+    }
+
+    public void onExpenseDeleted(Long userId, Long expenseId) {
+        update(userId, index -> index.remove(expenseId));
+    }
+
+    // Drops the user's index after a bulk change (archiving); their next search rebuilds it
+    public void invalidate(Long userId) {
+        synchronized (indexes) {
+            Entry entry = indexes.remove(userId);
+            if (entry != null) {
+                totalBytes -= entry.estimatedBytes;
+            }
+        }
+    }
+
+    private void update(Long userId, Consumer<ExpenseSearchIndex> change) {
+        Entry entry;
+        synchronized (indexes) {
+            entry = indexes.get(userId);
+        }
+        if (entry == null) {
+            return;
+        }
+        entry.lock.writeLock().lock();
+        try {
+            change.accept(entry.index);
+            resize(entry);
+        } finally {
+            entry.lock.writeLock().unlock();
+        }
+    }
+
+    private Entry entryFor(Long userId) {
+        Entry entry;
+        synchronized (indexes) {
+            entry = indexes.get(userId);
+            if (entry == null || System.nanoTime() - entry.builtAt > rebuildAfterNanos) {
+                if (entry != null) {
+                    totalBytes -= entry.estimatedBytes;
+                }
+                entry = new Entry(userId);
+                indexes.put(userId, entry);
+            }
+        }
+        if (entry.ready) {
+            return entry;
+        }
+
+        // The write lock makes concurrent first searches (and writes) wait for this one build.
+        // Writes that land while the build reads are applied afterwards; duplicates are ignored.
+        entry.lock.writeLock().lock();
+        try {
+            if (!entry.ready) {
+                long start = System.nanoTime();
+                for (Expense expense : expenseService.findAllByUserId(userId)) {
+                    entry.index.add(expense.getId(), expense.getName(), expense.getCategory(), expense.getAmount());
+                }
+                entry.ready = true;
+                resize(entry);
+                log.debug("Built search index for user {}: {} expenses, ~{} KB in {} ms", userId, entry.index.size(),
+                        entry.estimatedBytes / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } finally {
+            entry.lock.writeLock().unlock();
+        }
+        return entry;
+    }
+
+    // Called with the entry's write lock held
+    private void resize(Entry entry) {
+        long bytes = entry.index.estimatedBytes();
+        synchronized (indexes) {
+            // Evicted or replaced in the meantime; no longer counted
+            if (indexes.get(entry.userId) != entry) {
+                return;
+            }
+            totalBytes += bytes - entry.estimatedBytes;
+            entry.estimatedBytes = bytes;
+            Iterator<Map.Entry<Long, Entry>> lru = indexes.entrySet().iterator();
+            while (totalBytes > maxMemoryBytes && lru.hasNext()) {
+                Entry candidate = lru.next().getValue();
+                // A single index larger than the budget is kept; only other users are evicted
+                if (candidate != entry) {
+                    totalBytes -= candidate.estimatedBytes;
+                    lru.remove();
+                }
+            }
+        }
+    }
+}
@@ -5,8 +5,11 @@ import com.budgetmanager.backend.dto.AuthResponse;
 import com.budgetmanager.backend.dto.LoginRequest;
 import com.budgetmanager.backend.dto.RegisterRequest;
 import com.budgetmanager.backend.jwt.JwtService;
+import com.budgetmanager.backend.jwt.TokenGenerationCache;
 import com.budgetmanager.backend.model.User;
 import com.budgetmanager.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,19 +21,24 @@ import com.budgetmanager.backend.dto.ChangePasswordRequest; // Add this import
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final TokenGenerationCache tokenGenerationCache;
 
     public AuthService(UserRepository userRepository,
                          PasswordEncoder passwordEncoder,
                          JwtService jwtService,
-                         AuthenticationManager authenticationManager) {
+                         AuthenticationManager authenticationManager,
+                         TokenGenerationCache tokenGenerationCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.tokenGenerationCache = tokenGenerationCache;
     }
 
     public AuthResponse register(RegisterRequest request) {
@@ -63,14 +71,10 @@ public class AuthService {
         var jwtToken = jwtService.generateToken(user);
         return AuthResponse.builder().token(jwtToken).build();
     }
-    public void changePassword(ChangePasswordRequest request) {
+    // Changes the password and revokes every token issued before; returns a fresh token for the caller
+    public AuthResponse changePassword(ChangePasswordRequest request) {
         // 1. Get the currently authenticated user
-        var authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
-            throw new IllegalStateException("User not authenticated");
-        }
-        
-        User user = (User) authentication.getPrincipal();
+        User user = getAuthenticatedUser();
 
         // 2. Check if the current password is correct
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
@@ -82,16 +86,33 @@ public class AuthService {
             throw new IllegalArgumentException("New passwords do not match");
         }
 
-        // 4. Encode the new password
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-
-        // 5. Save the updated user
-        userRepository.save(user);
+        // 4. Write the new password and bump the token generation in one version-checked update
+        String encoded = passwordEncoder.encode(request.getNewPassword());
+        UserService.checkUpdated(userRepository.updatePassword(user.getId(), user.getVersion(), encoded), user);
+        user.setPassword(encoded);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        tokenGenerationCache.update(user.getUsername(), user.getTokenVersion());
 
         // Optional: Re-authenticate the user if needed, though typically not required
         // var newAuth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
         // SecurityContextHolder.getContext().setAuthentication(newAuth);
 
-        System.out.println("Password changed successfully for user: " + user.getUsername()); // Log success
+        log.info("Password changed for user {}", user.getUsername());
+        return AuthResponse.builder().token(jwtService.generateToken(user)).build();
+    }
+
+    // Revokes every token issued to the current user, including the one used for this call
+    public void logoutEverywhere() {
+        User user = getAuthenticatedUser();
+        userRepository.incrementTokenVersion(user.getId());
+        tokenGenerationCache.invalidate(user.getUsername());
+    }
+
+    private User getAuthenticatedUser() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
+            throw new IllegalStateException("User not authenticated");
+        }
+        return (User) authentication.getPrincipal();
     }
 }
\ No newline at end of file
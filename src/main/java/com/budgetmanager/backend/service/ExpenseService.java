@@ -0,0 +1,154 @@
+package com.budgetmanager.backend.service;
+
+import com.budgetmanager.backend.analytics.ExpenseColumns;
+import com.budgetmanager.backend.analytics.ExpenseColumnsLoader;
+import com.budgetmanager.backend.analytics.ExpenseTotals;
+import com.budgetmanager.backend.archive.ExpenseArchive;
+import com.budgetmanager.backend.datasource.ReadYourWritesTracker;
+import com.budgetmanager.backend.groupcommit.ExpenseGroupCommitter;
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.ExpenseCategory;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.repository.ExpenseCategoryRepository;
+import com.budgetmanager.backend.repository.ExpenseRepository;
+import com.budgetmanager.backend.shard.ShardedExpenseStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Reads and writes a user's expenses, either through JPA on the main database or, when
+ * app.sharding.enabled is set, through the sharded store.
+ */
+@Service
+public class ExpenseService {
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseCategoryRepository categoryRepository;
+    private final ExpenseColumnsLoader columnsLoader;
+    private final ExpenseArchive archive;
+    private final ShardedExpenseStore shardedStore;
+    private final ExpenseGroupCommitter groupCommitter;
+    private final ReadYourWritesTracker writeTracker;
+
+    public ExpenseService(ExpenseRepository expenseRepository,
+                          ExpenseCategoryRepository categoryRepository,
+                          ExpenseColumnsLoader columnsLoader,
+                          ExpenseArchive archive,
+                          ObjectProvider<ShardedExpenseStore> shardedStore,
+                          ObjectProvider<ExpenseGroupCommitter> groupCommitter,
+                          ObjectProvider<ReadYourWritesTracker> writeTracker) {
+        this.expenseRepository = expenseRepository;
+        this.categoryRepository = categoryRepository;
+        this.columnsLoader = columnsLoader;
+        this.archive = archive;
+        this.shardedStore = shardedStore.getIfAvailable();
+        this.groupCommitter = groupCommitter.getIfAvailable();
+        this.writeTracker = writeTracker.getIfAvailable();
+    }
+
+    public List<Expense> findAllByUserId(Long userId) {
+        if (shardedStore != null) {
+            return shardedStore.findAllByUserId(userId);
+        }
+        return expenseRepository.findAllByUserId(userId);
+    }
+
+    // The user's latest expenses, newest first
+    public List<Expense> findRecent(Long userId, int limit) {
+        if (shardedStore != null) {
+            return shardedStore.findRecent(userId, limit);
+        }
+        return expenseRepository.findRecentByUserId(userId, PageRequest.of(0, limit));
+    }
+
+    // Count and totals only; includes archived expenses without reading their rows
+    public ExpenseTotals loadTotals(User user) {
+        if (shardedStore != null) {
+            return ExpenseTotals.of(ExpenseColumns.fromExpenses(shardedStore.findAllByUserId(user.getId())));
+        }
+        LiveColumns live = loadLive(user);
+        ExpenseTotals totals = ExpenseTotals.of(live.columns());
+        archive.addArchivedTotals(user.getId(), live.archivedSegments(), totals);
+        return totals;
+    }
+
+    // Amounts and category codes only, for analytics that need every row; includes archived expenses
+    public ExpenseColumns loadColumns(User user) {
+        if (shardedStore != null) {
+            return ExpenseColumns.fromExpenses(shardedStore.findAllByUserId(user.getId()));
+        }
+        LiveColumns live = loadLive(user);
+        return archive.withArchived(user.getId(), live.archivedSegments(), live.columns());
+    }
+
+    private record LiveColumns(ExpenseColumns columns, int archivedSegments) {}
+
+    // The live rows and the segment count they go with. The count only rises, and only in the
+    // transaction that deletes the rows it archives, so one unchanged across the live read
+    // (the user's may be from the start of the request) means no row moved out of sight.
+    private LiveColumns loadLive(User user) {
+        int segments = user.getArchivedSegments();
+        while (true) {
+            ExpenseColumns columns = columnsLoader.load(user.getId());
+            int current = columnsLoader.archivedSegments(user.getId());
+            if (current == segments) {
+                return new LiveColumns(columns, segments);
+            }
+            segments = current;
+        }
+    }
+
+    // Throws RejectedExecutionException when group commit is on and its queue is full
+    public Expense add(Expense expense, User user) {
+        if (shardedStore != null) {
+            return shardedStore.save(expense, user.getId());
+        }
+        expense.setUser(user);
+        expense.setCategoryRef(internCategory(user, expense.getCategory()));
+        if (groupCommitter != null) {
+            Expense saved = groupCommitter.insert(expense);
+            // The insert ran on the writer thread, which has no caller to record the write for
+            if (writeTracker != null) {
+                writeTracker.recordWrite();
+            }
+            return saved;
+        }
+        return expenseRepository.save(expense);
+    }
+
+    // Returns false when the expense belongs to someone else
+    public boolean delete(Long expenseId, User user) {
+        if (shardedStore != null) {
+            return switch (shardedStore.delete(expenseId, user.getId())) {
+                case DELETED -> true;
+                case NOT_OWNER -> false;
+                case NOT_FOUND -> throw new RuntimeException("Expense not found");
+            };
+        }
+
+        Expense expense = expenseRepository.findById(expenseId)
+                .orElseThrow(() -> new RuntimeException("Expense not found"));
+        if (!expense.getUser().getId().equals(user.getId())) {
+            return false;
+        }
+        expenseRepository.delete(expense);
+        return true;
+    }
+
+    // Finds or creates the user's dictionary entry for a category name
+    private ExpenseCategory internCategory(User user, String name) {
+        String category = name.strip();
+        return categoryRepository.findByUserIdAndName(user.getId(), category).orElseGet(() -> {
+            try {
+                return categoryRepository.saveAndFlush(ExpenseCategory.builder().user(user).name(category).build());
+            } catch (DataIntegrityViolationException e) {
+                // Another request created it first
+                return categoryRepository.findByUserIdAndName(user.getId(), category).orElseThrow(() -> e);
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.budgetmanager.backend.service;
+
+import com.budgetmanager.backend.dto.UpdateProfileRequest;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.repository.UserRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Profile changes for the authenticated user. Each change is one UPDATE of just the affected
+ * columns, guarded by the version the user had when this request authenticated; if the row
+ * moved on since, it throws OptimisticLockingFailureException and changes nothing.
+ */
+@Service
+public class UserService {
+
+    private final UserRepository userRepository;
+
+    public UserService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // The user JwtAuthFilter loaded for this request
+    public User currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        String username = authentication == null ? null : authentication.getName();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    }
+
+    public void updateBudget(User user, double budget) {
+        checkUpdated(userRepository.updateBudget(user.getId(), user.getVersion(), budget), user);
+        user.setBudget(budget);
+    }
+
+    public void updateProfile(User user, UpdateProfileRequest request) {
+        checkUpdated(userRepository.updateProfile(user.getId(), user.getVersion(), request.getFullName(),
+                request.getEmail(), request.getVillage(), request.getPhoneNumber()), user);
+        if (request.getFullName() != null) {
+            user.setFullName(request.getFullName());
+        }
+        if (request.getEmail() != null) {
+            user.setEmail(request.getEmail());
+        }
+        if (request.getVillage() != null) {
+            user.setVillage(request.getVillage());
+        }
+        if (request.getPhoneNumber() != null) {
+            user.setPhoneNumber(request.getPhoneNumber());
+        }
+    }
+
+    public void updateProfilePhotoPath(User user, String path) {
+        checkUpdated(userRepository.updateProfilePhotoPath(user.getId(), user.getVersion(), path), user);
+        user.setProfilePhotoPath(path);
+    }
+
+    // Keeps the in-memory user in step with the row after a successful update
+    static void checkUpdated(int rows, User user) {
+        if (rows == 0) {
+            throw new OptimisticLockingFailureException("Your account was changed by another request; reload and try again");
+        }
+        user.setVersion(user.getVersion() + 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.budgetmanager.backend.shard;
+
+/**
+ * Time-ordered ids for sharded expenses: milliseconds since 2024-01-01 in the high bits and a
+ * 12-bit per-millisecond sequence below. Ids stay under 2^53 so they survive a round trip
+ * through JavaScript numbers on the frontend.
+ *
+ * Two instances can produce the same id in the same millisecond; shard rows are keyed by
+ * (user_id, id), so that only matters for one user's concurrent inserts, and the store retries.
+ */
+class ExpenseIdGenerator {
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private long lastMillis = -1;
+    private long sequence;
+
+    synchronized long nextId() {
+        long now = System.currentTimeMillis();
+        if (now < lastMillis) {
+            // Clock went backwards; keep counting in the last millisecond we saw
+            now = lastMillis;
+        }
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                now = waitForNextMillis(lastMillis);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return ((now - EPOCH_MILLIS) << SEQUENCE_BITS) | sequence;
+    }
+
+    private static long waitForNextMillis(long lastMillis) {
+        long now = System.currentTimeMillis();
+        while (now <= lastMillis) {
+            Thread.onSpinWait();
+            now = System.currentTimeMillis();
+        }
+        return now;
+    }
+}
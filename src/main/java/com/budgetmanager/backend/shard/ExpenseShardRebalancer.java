@@ -0,0 +1,160 @@
+package com.budgetmanager.backend.shard;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves users whose shard changed after shards were added (app.sharding.previous-shard-count
+ * set to the old count). Runs while the app keeps serving: new writes already go to the new
+ * shard and reads cover both, so each user is copied, checked and then removed from the old one.
+ *
+ * Also performs the one-off {@link #backfill} of the main expense table when sharding is first
+ * switched on.
+ */
+public class ExpenseShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseShardRebalancer.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    static final String USERS_IN_MAIN = "SELECT DISTINCT user_id FROM expense";
+    static final String MAIN_ROWS = "SELECT e.id, e.name, c.name, e.amount_minor FROM expense e "
+            + "JOIN expense_category c ON c.id = e.category_id WHERE e.user_id = ? ORDER BY e.id";
+
+    private final ShardedExpenseStore store;
+
+    public ExpenseShardRebalancer(ShardedExpenseStore store) {
+        this.store = store;
+    }
+
+    // Returns the number of rows moved
+    public long rebalance() {
+        ShardRouter router = store.router();
+        if (!router.isRebalancing()) {
+            log.info("Shards are not rebalancing (previous shard count unset); nothing to move");
+            return 0;
+        }
+
+        long moved = 0;
+        for (int source = 0; source < router.previousShardCount(); source++) {
+            List<Long> userIds = store.shard(source)
+                    .queryForList("SELECT DISTINCT user_id FROM sharded_expense", Long.class);
+            for (long userId : userIds) {
+                int target = router.shardFor(userId);
+                if (target != source) {
+                    moved += moveUser(userId, source, target);
+                }
+            }
+            log.info("Rebalanced shard {} of {}: {} rows moved so far", source + 1, router.previousShardCount(), moved);
+        }
+        log.info("Shard rebalance finished, {} rows moved; previous-shard-count can now be removed", moved);
+        return moved;
+    }
+
+    /**
+     * Copies every row of the main expense table onto its owner's shard, keeping its id, then
+     * deletes it from the main table. A user is copied before their main rows are deleted, so a
+     * run that stops part way can simply be repeated. Must finish before sharded instances serve
+     * traffic, since they no longer read the main table.
+     */
+    public long backfill(JdbcTemplate main, PlatformTransactionManager mainTransactionManager) {
+        ShardRouter router = store.router();
+        TransactionTemplate mainTransaction = new TransactionTemplate(mainTransactionManager);
+        List<Long> userIds = main.queryForList(USERS_IN_MAIN, Long.class);
+        long moved = 0;
+        for (long userId : userIds) {
+            List<Expense> rows = main.query(MAIN_ROWS, (rs, rowNum) -> Expense.builder()
+                    .id(rs.getLong(1))
+                    .name(rs.getString(2))
+                    .category(rs.getString(3))
+                    .amount(MinorUnitsConverter.toMajor(rs.getLong(4)))
+                    .build(), userId);
+            int target = router.shardFor(userId);
+            copyMissing(store.shard(target), target, userId, rows);
+            List<Long> ids = rows.stream().map(Expense::getId).toList();
+            mainTransaction.executeWithoutResult(status -> {
+                NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(main);
+                for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                    named.update("DELETE FROM expense WHERE user_id = :userId AND id IN (:ids)",
+                            new MapSqlParameterSource().addValue("userId", userId)
+                                    .addValue("ids", ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE))));
+                }
+            });
+            moved += rows.size();
+        }
+        log.info("Backfilled {} expenses of {} users from the main database onto the shards", moved, userIds.size());
+        return moved;
+    }
+
+    private long moveUser(long userId, int source, int target) {
+        JdbcTemplate sourceShard = store.shard(source);
+        JdbcTemplate targetShard = store.shard(target);
+
+        List<Expense> rows = sourceShard.query(ShardedExpenseStore.SELECT_BY_USER, ShardedExpenseStore.EXPENSE_ROW_MAPPER, userId);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Copy whatever the target does not have yet
+        List<Long> copiedIds = copyMissing(targetShard, target, userId, rows);
+
+        // 2. Rows deleted from the source while we copied must not come back on the target
+        Set<Long> stillInSource = new HashSet<>(selectIds(sourceShard, userId, copiedIds));
+        List<Long> resurrected = copiedIds.stream().filter(id -> !stillInSource.contains(id)).toList();
+        deleteIds(targetShard, userId, resurrected);
+
+        // 3. The target now holds everything; drop the source copies
+        deleteIds(sourceShard, userId, rows.stream().map(Expense::getId).toList());
+        return rows.size();
+    }
+
+    // Inserts the rows the target shard does not hold yet; returns their ids
+    private List<Long> copyMissing(JdbcTemplate targetShard, int target, long userId, List<Expense> rows) {
+        Set<Long> present = new HashSet<>(targetShard.queryForList(
+                "SELECT id FROM sharded_expense WHERE user_id = ?", Long.class, userId));
+        List<Expense> missing = rows.stream().filter(e -> !present.contains(e.getId())).toList();
+        new TransactionTemplate(new DataSourceTransactionManager(store.dataSource(target))).executeWithoutResult(status ->
+                targetShard.batchUpdate(ShardedExpenseStore.INSERT, missing, BATCH_SIZE, (ps, e) -> {
+                    ps.setLong(1, userId);
+                    ps.setLong(2, e.getId());
+                    ps.setString(3, e.getName());
+                    ps.setString(4, e.getCategory());
+                    ps.setDouble(5, e.getAmount());
+                }));
+        return missing.stream().map(Expense::getId).toList();
+    }
+
+    private static List<Long> selectIds(JdbcTemplate shard, long userId, List<Long> ids) {
+        List<Long> found = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            found.addAll(new NamedParameterJdbcTemplate(shard).queryForList(
+                    "SELECT id FROM sharded_expense WHERE user_id = :userId AND id IN (:ids)",
+                    new MapSqlParameterSource().addValue("userId", userId).addValue("ids", batch),
+                    Long.class));
+        }
+        return found;
+    }
+
+    private static void deleteIds(JdbcTemplate shard, long userId, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            new NamedParameterJdbcTemplate(shard).update(
+                    "DELETE FROM sharded_expense WHERE user_id = :userId AND id IN (:ids)",
+                    new MapSqlParameterSource().addValue("userId", userId).addValue("ids", batch));
+        }
+    }
+}
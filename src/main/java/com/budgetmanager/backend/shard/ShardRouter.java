@@ -0,0 +1,62 @@
+package com.budgetmanager.backend.shard;
+
+/**
+ * Maps a user id to a shard with jump consistent hashing, so growing from N to N+1 shards
+ * only moves about 1/(N+1) of the users.
+ *
+ * While a rebalance is in progress the router also knows the previous shard count: a user
+ * whose shard changed may still have rows on the old shard until the rebalancer moves them.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+    private final int previousShardCount;
+
+    public ShardRouter(int shardCount, int previousShardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (previousShardCount < 0 || previousShardCount > shardCount) {
+            throw new IllegalArgumentException("Previous shard count must be between 0 and " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.previousShardCount = previousShardCount == shardCount ? 0 : previousShardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int previousShardCount() {
+        return previousShardCount;
+    }
+
+    public boolean isRebalancing() {
+        return previousShardCount > 0;
+    }
+
+    public int shardFor(long userId) {
+        return jumpConsistentHash(userId, shardCount);
+    }
+
+    // The shard the user lived on before the current rebalance, or -1 if it has not changed
+    public int previousShardFor(long userId) {
+        if (!isRebalancing()) {
+            return -1;
+        }
+        int previous = jumpConsistentHash(userId, previousShardCount);
+        return previous == shardFor(userId) ? -1 : previous;
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,175 @@
+package com.budgetmanager.backend.shard;
+
+import com.budgetmanager.backend.model.Expense;
+import org.flywaydb.core.Flyway;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expense storage spread over several databases, each user's rows living on the shard chosen
+ * by {@link ShardRouter}. Rows are keyed by (user_id, id) so a user's expenses are clustered
+ * together and every statement is a primary-key range or point lookup on one shard.
+ *
+ * During a rebalance, writes go to the user's new shard while reads and deletes also cover the
+ * old one, so the app stays correct while {@link ExpenseShardRebalancer} moves rows across.
+ */
+public class ShardedExpenseStore implements Closeable {
+
+    // Versioned per shard, in its own history table so a shard may share a database with the app
+    static final String MIGRATIONS = "classpath:db/shard-migration";
+    static final String HISTORY_TABLE = "shard_schema_history";
+
+    static final String SELECT_BY_USER =
+            "SELECT id, name, category, amount FROM sharded_expense WHERE user_id = ? ORDER BY id";
+    // Walks the (user_id, id) primary key backwards, so only the newest rows are read
+    static final String SELECT_RECENT_BY_USER =
+            "SELECT id, name, category, amount FROM sharded_expense WHERE user_id = ? ORDER BY id DESC LIMIT ?";
+    static final String INSERT =
+            "INSERT INTO sharded_expense (user_id, id, name, category, amount) VALUES (?, ?, ?, ?, ?)";
+    static final String DELETE =
+            "DELETE FROM sharded_expense WHERE user_id = ? AND id = ?";
+    static final String EXISTS_BY_ID =
+            "SELECT COUNT(*) FROM sharded_expense WHERE id = ?";
+
+    static final RowMapper<Expense> EXPENSE_ROW_MAPPER = (rs, rowNum) -> Expense.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .category(rs.getString("category"))
+            .amount(rs.getDouble("amount"))
+            .build();
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    public enum DeleteResult { DELETED, NOT_OWNER, NOT_FOUND }
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final ShardRouter router;
+    private final ExpenseIdGenerator idGenerator = new ExpenseIdGenerator();
+
+    public ShardedExpenseStore(List<? extends DataSource> dataSources, ShardRouter router) {
+        if (dataSources.size() != router.shardCount()) {
+            throw new IllegalArgumentException("Configured " + dataSources.size()
+                    + " shard datasources but the router expects " + router.shardCount());
+        }
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.router = router;
+    }
+
+    // Applies db/shard-migration to every shard. Shards created before these migrations already
+    // have the table; they are baselined at version 0 so V1 (CREATE TABLE IF NOT EXISTS) adopts them.
+    public void migrateSchema() {
+        for (DataSource dataSource : dataSources) {
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(MIGRATIONS)
+                    .table(HISTORY_TABLE)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+        }
+    }
+
+    public List<Expense> findAllByUserId(long userId) {
+        List<Expense> expenses = shard(router.shardFor(userId)).query(SELECT_BY_USER, EXPENSE_ROW_MAPPER, userId);
+        int previous = router.previousShardFor(userId);
+        if (previous < 0) {
+            return expenses;
+        }
+
+        // Mid-rebalance: rows may still be on the old shard (or briefly on both)
+        Map<Long, Expense> merged = new LinkedHashMap<>();
+        shard(previous).query(SELECT_BY_USER, EXPENSE_ROW_MAPPER, userId).forEach(e -> merged.put(e.getId(), e));
+        expenses.forEach(e -> merged.put(e.getId(), e));
+        List<Expense> result = new ArrayList<>(merged.values());
+        result.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return result;
+    }
+
+    // The user's latest expenses, newest first
+    public List<Expense> findRecent(long userId, int limit) {
+        List<Expense> expenses =
+                shard(router.shardFor(userId)).query(SELECT_RECENT_BY_USER, EXPENSE_ROW_MAPPER, userId, limit);
+        int previous = router.previousShardFor(userId);
+        if (previous < 0) {
+            return expenses;
+        }
+
+        // Mid-rebalance: the newest rows may be on either shard, so take the top of both
+        Map<Long, Expense> merged = new LinkedHashMap<>();
+        shard(previous).query(SELECT_RECENT_BY_USER, EXPENSE_ROW_MAPPER, userId, limit).forEach(e -> merged.put(e.getId(), e));
+        expenses.forEach(e -> merged.put(e.getId(), e));
+        List<Expense> result = new ArrayList<>(merged.values());
+        result.sort((a, b) -> Long.compare(b.getId(), a.getId()));
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    public Expense save(Expense expense, long userId) {
+        JdbcTemplate shard = shard(router.shardFor(userId));
+        for (int attempt = 1; ; attempt++) {
+            long id = idGenerator.nextId();
+            try {
+                shard.update(INSERT, userId, id, expense.getName(), expense.getCategory(), expense.getAmount());
+                expense.setId(id);
+                return expense;
+            } catch (DuplicateKeyException e) {
+                // Same millisecond and sequence on another instance for this user
+                if (attempt == MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Deletes only within the user's own rows; an id that exists under another user is NOT_OWNER
+    public DeleteResult delete(long expenseId, long userId) {
+        int deleted = shard(router.shardFor(userId)).update(DELETE, userId, expenseId);
+        int previous = router.previousShardFor(userId);
+        if (previous >= 0) {
+            deleted += shard(previous).update(DELETE, userId, expenseId);
+        }
+        if (deleted > 0) {
+            return DeleteResult.DELETED;
+        }
+        // Failure path only: the owner could be on any shard (idx_sharded_expense_id)
+        for (JdbcTemplate shard : shards) {
+            Long count = shard.queryForObject(EXISTS_BY_ID, Long.class, expenseId);
+            if (count != null && count > 0) {
+                return DeleteResult.NOT_OWNER;
+            }
+        }
+        return DeleteResult.NOT_FOUND;
+    }
+
+    ShardRouter router() {
+        return router;
+    }
+
+    JdbcTemplate shard(int index) {
+        return shards.get(index);
+    }
+
+    DataSource dataSource(int index) {
+        return dataSources.get(index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+-- Schema exactly as previously derived by Hibernate (ddl-auto=update) from User and Expense;
+-- columns added since then belong in later migrations.
+-- Existing databases are baselined at this version and start from V2.
+
+CREATE TABLE _user (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    budget DOUBLE NOT NULL,
+    profile_photo_path VARCHAR(255),
+    full_name VARCHAR(255),
+    email VARCHAR(255) NOT NULL,
+    village VARCHAR(255),
+    phone_number VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT uk_user_email UNIQUE (email)
+);
+
+CREATE TABLE expense (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    amount DOUBLE NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_expense_user FOREIGN KEY (user_id) REFERENCES _user (id)
+);
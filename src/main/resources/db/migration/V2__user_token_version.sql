@@ -0,0 +1,2 @@
+-- Bumped on password change and logout-all; tokens carrying an older value are rejected
+ALTER TABLE _user ADD COLUMN token_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Indexes for the queries ExpenseRepository actually runs.
+
+-- findAllByUserId: one range scan per user, in id order, answered from the index alone
+-- (no per-row lookups into the clustered table).
+CREATE INDEX idx_expense_user_listing ON expense (user_id, id, name, category, amount);
+
+-- sumAmountByCategory: groups arrive already sorted by category and the sum reads amount
+-- straight from the index.
+CREATE INDEX idx_expense_user_category_amount ON expense (user_id, category, amount);
@@ -0,0 +1,2 @@
+-- Optimistic lock for User: every targeted UPDATE checks and bumps it
+ALTER TABLE _user ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
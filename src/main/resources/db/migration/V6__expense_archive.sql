@@ -0,0 +1,7 @@
+-- Expenses get a creation time so old ones can be moved out of the table into archive
+-- segment files, and users a count of their segments (see ExpenseArchive). Rows that exist
+-- already count as created now.
+ALTER TABLE expense ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+CREATE INDEX idx_expense_created_at ON expense (created_at);
+
+ALTER TABLE _user ADD COLUMN archived_segments INTEGER NOT NULL DEFAULT 0;
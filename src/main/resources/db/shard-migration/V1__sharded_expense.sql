@@ -0,0 +1,10 @@
+-- Expense table on every shard; rows are keyed (user_id, id) so a user's expenses are clustered.
+-- IF NOT EXISTS adopts shards whose table was created before shard migrations existed.
+CREATE TABLE IF NOT EXISTS sharded_expense (
+    user_id BIGINT NOT NULL,
+    id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    amount DOUBLE NOT NULL,
+    PRIMARY KEY (user_id, id)
+);
@@ -0,0 +1,3 @@
+-- Finds an expense's owner by id alone, so deleting someone else's expense can be told apart
+-- from deleting one that does not exist
+CREATE INDEX idx_sharded_expense_id ON sharded_expense (id);
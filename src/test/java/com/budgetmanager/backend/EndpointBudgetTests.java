@@ -0,0 +1,311 @@
+package com.budgetmanager.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Per-endpoint performance budgets: every endpoint is driven through the full filter chain and,
+ * once warmed up, must run exactly the SQL statements listed for it in endpoint-statements.txt
+ * and allocate at most the given number of KB on the request thread. Work on executor threads
+ * (dashboard sub-fetches, photo reads) counts towards the statements but not the allocation.
+ *
+ * Statements are compared sorted, since executor threads run them in no fixed order, and a
+ * mismatch prints a line diff against the file. If the change is intended, regenerate the file
+ * with -Dendpoint-budgets.update=true and commit it with the change. Allocation budgets are the
+ * measured value plus 50%, rounded up to 64 KB, so JDK and library noise does not fail the build.
+ */
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=false",
+        "app.jwt.generation-cache.ttl-seconds=3600",
+        "app.search.rebuild-after-seconds=3600",
+        "app.upload.profile-photos.dir=target/endpoint-budget-photos"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointBudgetTests {
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointBudgetTests.class);
+
+    private static final int WARMUP_RUNS = 30;
+    private static final int MEASURED_RUNS = 5;
+    private static final String PASSWORD = "budget-pw-1";
+    private static final Path EXPECTED_STATEMENTS = Path.of("src/test/resources/endpoint-statements.txt");
+    private static final boolean UPDATE_EXPECTED = Boolean.getBoolean("endpoint-budgets.update");
+
+    @TestConfiguration
+    static class RecordingConfig {
+        @Bean
+        static BeanPostProcessor statementRecorderPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                            ? new StatementRecorder(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String run = UUID.randomUUID().toString().substring(0, 8);
+    private final List<String> report = new ArrayList<>();
+    private final Map<String, List<String>> expectedStatements = new LinkedHashMap<>();
+    private final Map<String, List<String>> actualStatements = new LinkedHashMap<>();
+    private StatementRecorder recorder;
+    private String token;
+    private String photoPath;
+    private String passwordChangerToken;
+    private String passwordChangerPassword = PASSWORD;
+    private int counter;
+
+    @BeforeAll
+    void createUserWithData() throws Exception {
+        expectedStatements.putAll(readExpectedStatements());
+        recorder = dataSource.unwrap(StatementRecorder.class);
+        token = register("budget-" + run);
+        for (int i = 0; i < 50; i++) {
+            perform(auth(post("/api/data/expenses")).contentType(MediaType.APPLICATION_JSON)
+                    .content(expense((i % 2 == 0 ? "Coffee " : "Lunch ") + i, "Category " + (i % 5), 3 + i)));
+        }
+        MvcResult upload = perform(auth(multipart("/api/profile/photo").file(photo())));
+        photoPath = json(upload).get("filePath").asText();
+        passwordChangerToken = register("budget-pw-" + run);
+    }
+
+    @AfterAll
+    void logReport() throws Exception {
+        log.info("Endpoint budgets (statements, KB allocated on the request thread):\n{}", String.join("\n", report));
+        if (UPDATE_EXPECTED) {
+            writeExpectedStatements(actualStatements);
+            log.info("Rewrote {}", EXPECTED_STATEMENTS);
+        }
+    }
+
+    @TestFactory
+    List<DynamicTest> endpointsStayWithinBudget() {
+        return List.of(
+                budget("GET /api/data/budget", 832, () -> auth(get("/api/data/budget"))),
+                budget("GET /api/data/expenses", 960, () -> auth(get("/api/data/expenses"))),
+                budget("GET /api/data/expenses/search", 896, () -> auth(get("/api/data/expenses/search").param("q", "coffee"))),
+                budget("GET /api/data/expenses/export", 1024, () -> auth(get("/api/data/expenses/export"))),
+                budget("GET /api/data/expenses/categories", 832, () -> auth(get("/api/data/expenses/categories"))),
+                budget("GET /api/data/analytics", 896, () -> auth(get("/api/data/analytics"))),
+                budget("GET /api/profile", 832, () -> auth(get("/api/profile"))),
+                budget("GET /api/profile/photo-url", 832, () -> auth(get("/api/profile/photo-url"))),
+                budget("GET /api/profile/photo/{path}", 384, () -> get("/api/profile/photo/" + photoPath)),
+                budget("GET /api/dashboard", 832, () -> auth(get("/api/dashboard"))),
+                budget("POST /api/data/budget", 896, () -> auth(post("/api/data/budget"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"budget\":" + (500 + counter++) + "}")),
+                budget("POST /api/data/expenses", 960, () -> auth(post("/api/data/expenses"))
+                        .contentType(MediaType.APPLICATION_JSON).content(expense("Coffee", "Category 1", 4.5))),
+                budget("DELETE /api/data/expenses/{id}", 896, () -> {
+                    MvcResult added = perform(auth(post("/api/data/expenses")).contentType(MediaType.APPLICATION_JSON)
+                            .content(expense("Temporary", "Category 2", 1)));
+                    return auth(delete("/api/data/expenses/" + json(added).get("id").asLong()));
+                }),
+                budget("PUT /api/profile", 896, () -> auth(put("/api/profile"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"village\":\"Village " + counter++ + "\"}")),
+                budget("POST /api/profile/photo", 896, () -> auth(multipart("/api/profile/photo").file(photo()))),
+                budget("POST /api/auth/register", 3136, () -> post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON).content(registration("budget-new-" + run + "-" + counter++))),
+                budget("POST /api/auth/login", 3136, () -> post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "budget-" + run, "password", PASSWORD)))),
+                budget("POST /api/auth/change-password", 6464, this::changePassword),
+                budget("POST /api/auth/logout-all", 896, () -> post("/api/auth/logout-all")
+                        .header("Authorization", "Bearer " + register("budget-out-" + run + "-" + counter++)))
+        );
+    }
+
+    private DynamicTest budget(String endpoint, int maxKb, Callable<RequestBuilder> request) {
+        return DynamicTest.dynamicTest(endpoint, () -> {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                perform(request.call());
+            }
+
+            List<String> executed = List.of();
+            long minBytes = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                RequestBuilder next = request.call();
+                recorder.clear();
+                long before = allocatedBytes();
+                perform(next);
+                minBytes = Math.min(minBytes, allocatedBytes() - before);
+                executed = recorder.statements();
+            }
+            long kb = minBytes / 1024;
+            List<String> ran = executed.stream().map(EndpointBudgetTests::shape).sorted().toList();
+            report.add(String.format("  %-36s %3d statements %7d KB", endpoint, ran.size(), kb));
+            actualStatements.put(endpoint, ran);
+            if (UPDATE_EXPECTED) {
+                return;
+            }
+
+            List<String> expected = expectedStatements.getOrDefault(endpoint, List.of());
+            assertThat(ran)
+                    .withFailMessage(() -> String.format("%s ran %d SQL statements, expected %d (- expected, + ran):%n%s",
+                            endpoint, ran.size(), expected.size(), diff(expected, ran)))
+                    .isEqualTo(expected);
+            assertThat(kb)
+                    .withFailMessage("%s allocated %d KB on the request thread, budget is %d KB", endpoint, kb, maxKb)
+                    .isLessThanOrEqualTo(maxKb);
+        });
+    }
+
+    private RequestBuilder changePassword() throws Exception {
+        String next = passwordChangerPassword.equals(PASSWORD) ? PASSWORD + "x" : PASSWORD;
+        String body = objectMapper.writeValueAsString(Map.of("currentPassword", passwordChangerPassword,
+                "newPassword", next, "confirmationPassword", next));
+        passwordChangerPassword = next;
+        return post("/api/auth/change-password").header("Authorization", "Bearer " + passwordChangerToken)
+                .contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        MvcResult result = mvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mvc.perform(asyncDispatch(result)).andReturn();
+        }
+        int status = result.getResponse().getStatus();
+        assertThat(status).withFailMessage("%s answered %d: %s", result.getRequest().getRequestURI(), status,
+                result.getResponse().getContentAsString()).isLessThan(300);
+        if (result.getRequest().getRequestURI().equals("/api/auth/change-password")) {
+            passwordChangerToken = json(result).get("token").asText();
+        }
+        return result;
+    }
+
+    private String register(String username) throws Exception {
+        return json(perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content(registration(username)))).get("token").asText();
+    }
+
+    private String registration(String username) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("username", username, "password", PASSWORD, "email", username + "@x.io"));
+    }
+
+    private String expense(String name, String category, double amount) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("name", name, "category", category, "amount", amount));
+    }
+
+    private MockHttpServletRequestBuilder auth(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private static MockMultipartFile photo() {
+        return new MockMultipartFile("file", "avatar.png", "image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3});
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsByteArray());
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // One line per statement, so the file diffs cleanly
+    private static String shape(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    // Both lists are sorted, so a merge walk pairs up equal lines
+    private static String diff(List<String> expected, List<String> actual) {
+        List<String> lines = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < expected.size() || j < actual.size()) {
+            int order = i == expected.size() ? 1 : j == actual.size() ? -1 : expected.get(i).compareTo(actual.get(j));
+            if (order == 0) {
+                lines.add("    " + expected.get(i++));
+                j++;
+            } else if (order < 0) {
+                lines.add("  - " + expected.get(i++));
+            } else {
+                lines.add("  + " + actual.get(j++));
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    // Endpoint lines, each followed by its statements indented by four spaces
+    private static Map<String, List<String>> readExpectedStatements() throws IOException {
+        Map<String, List<String>> expected = new LinkedHashMap<>();
+        if (!Files.exists(EXPECTED_STATEMENTS)) {
+            return expected;
+        }
+        List<String> current = null;
+        for (String line : Files.readAllLines(EXPECTED_STATEMENTS)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("    ")) {
+                current.add(line.substring(4));
+            } else {
+                current = new ArrayList<>();
+                expected.put(line, current);
+            }
+        }
+        expected.replaceAll((endpoint, statements) -> statements.stream().sorted().toList());
+        return expected;
+    }
+
+    private static void writeExpectedStatements(Map<String, List<String>> statements) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# SQL each endpoint runs once warmed up, checked by EndpointBudgetTests.");
+        lines.add("# Regenerate with: mvn test -Dtest=EndpointBudgetTests -Dendpoint-budgets.update=true");
+        statements.forEach((endpoint, sql) -> {
+            lines.add("");
+            lines.add(endpoint);
+            sql.forEach(statement -> lines.add("    " + statement));
+        });
+        Files.write(EXPECTED_STATEMENTS, lines);
+    }
+}
@@ -0,0 +1,93 @@
+package com.budgetmanager.backend;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test DataSource that records the SQL of every statement executed through it, from any thread.
+ * A batch counts as one statement.
+ */
+public class StatementRecorder extends DelegatingDataSource {
+
+    private final List<String> statements = new ArrayList<>();
+
+    public StatementRecorder(DataSource target) {
+        super(target);
+    }
+
+    public synchronized void clear() {
+        statements.clear();
+    }
+
+    public synchronized List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    private synchronized void record(String sql) {
+        statements.add(sql);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> recording(PreparedStatement.class, result, (String) args[0]);
+                case "prepareCall" -> recording(CallableStatement.class, result, (String) args[0]);
+                case "createStatement" -> recording(Statement.class, result, null);
+                default -> result;
+            };
+        });
+    }
+
+    private <T> T recording(Class<T> type, Object statement, String preparedSql) {
+        return proxy(type, (method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                record(preparedSql != null ? preparedSql : String.valueOf(args[0]));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class && !method.getName().equals("toString")) {
+                return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+            }
+            return handler.handle(method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
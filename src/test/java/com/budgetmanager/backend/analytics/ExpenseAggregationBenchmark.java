@@ -0,0 +1,102 @@
+package com.budgetmanager.backend.analytics;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.ExpenseCategory;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The same analytics (total, per-category totals, top 5 categories, 10-bucket histogram) over
+ * hydrated Expense entities versus {@link ExpenseColumns}. Loading is left out; both start from
+ * data already in memory. Add JMH's -prof gc to compare allocation per operation.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ExpenseAggregation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpenseAggregationBenchmark {
+
+    private static final int CATEGORIES = 40;
+    private static final long BUCKET_WIDTH = 10_00;
+    private static final int BUCKETS = 10;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Expense> entities;
+    private ExpenseColumns columns;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<ExpenseCategory> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(ExpenseCategory.builder().id(i + 1).name("Category " + i).build());
+        }
+
+        entities = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            // Skewed towards a few categories, amounts up to 150.00
+            int category = (int) (Math.abs(random.nextGaussian()) * CATEGORIES / 3) % CATEGORIES;
+            entities.add(Expense.builder()
+                    .id(id)
+                    .name("Expense " + id)
+                    .categoryRef(categories.get(category))
+                    .amount(MinorUnitsConverter.toMajor(random.nextLong(15_000)))
+                    .build());
+        }
+        columns = ExpenseColumns.fromExpenses(entities);
+    }
+
+    @Benchmark
+    public void entities(Blackhole blackhole) {
+        blackhole.consume(entities.stream().mapToDouble(Expense::getAmount).sum());
+
+        Map<String, Double> totals = entities.stream()
+                .collect(Collectors.groupingBy(Expense::getCategory, TreeMap::new, Collectors.summingDouble(Expense::getAmount)));
+        blackhole.consume(totals);
+        blackhole.consume(totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(5)
+                .map(Map.Entry::getKey)
+                .toList());
+
+        blackhole.consume(entities.stream()
+                .collect(Collectors.groupingBy(
+                        e -> (int) Math.min(BUCKETS - 1, Math.max(0, MinorUnitsConverter.toMinor(e.getAmount())) / BUCKET_WIDTH),
+                        Collectors.counting())));
+    }
+
+    @Benchmark
+    public void columns(Blackhole blackhole) {
+        blackhole.consume(ExpenseAggregator.total(columns));
+        long[] totals = ExpenseAggregator.totalsByCategory(columns);
+        blackhole.consume(totals);
+        blackhole.consume(ExpenseAggregator.topCategories(totals, 5));
+        blackhole.consume(ExpenseAggregator.histogram(columns, BUCKET_WIDTH, BUCKETS));
+    }
+}
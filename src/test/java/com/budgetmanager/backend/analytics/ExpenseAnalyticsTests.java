@@ -0,0 +1,74 @@
+package com.budgetmanager.backend.analytics;
+
+import com.budgetmanager.backend.dto.ExpenseAnalyticsDto;
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.repository.UserRepository;
+import com.budgetmanager.backend.service.ExpenseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ExpenseAnalyticsTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseAnalyticsService analyticsService;
+
+    @Test
+    void summarizesFromColumnsInMinorUnits() {
+        User user = user("carol");
+        expenseService.add(expense("Rent", "Housing", 700), user);
+        expenseService.add(expense("Lunch", "Food", 12.10), user);
+        expenseService.add(expense("Dinner", "Food ", 20.20), user);
+        expenseService.add(expense("Bus", "Travel", 0.10), user);
+        expenseService.add(expense("Taxi", "Travel", 0.20), user);
+        expenseService.add(expense("Other user", "Food", 99), user("dave"));
+
+        ExpenseAnalyticsDto analytics = analyticsService.summarize(user, 2, 10, 3);
+
+        assertThat(analytics.getCount()).isEqualTo(5);
+        assertThat(analytics.getTotal()).isEqualTo(732.60);
+        assertThat(analytics.getCategoryTotals()).containsExactly(
+                Map.entry("Food", 32.30), Map.entry("Housing", 700.0), Map.entry("Travel", 0.30));
+        assertThat(analytics.getTopCategories()).containsExactly("Housing", "Food");
+        assertThat(analytics.getHistogram()).containsExactly(2, 1, 2);
+    }
+
+    @Test
+    void listingReturnsCategoryNamesAndDecimalAmounts() {
+        User user = user("erin");
+        expenseService.add(expense("Coffee", "Food", 3.45), user);
+        expenseService.add(expense("Cake", "Food", 5), user);
+
+        assertThat(expenseService.findAllByUserId(user.getId()))
+                .extracting(Expense::getName, Expense::getCategory, Expense::getAmount)
+                .containsExactly(
+                        tuple("Coffee", "Food", 3.45),
+                        tuple("Cake", "Food", 5.0));
+        assertThat(analyticsService.categoryTotals(user)).containsExactly(Map.entry("Food", 8.45));
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .password("x")
+                .email(username + "@example.com")
+                .build());
+    }
+
+    private static Expense expense(String name, String category, double amount) {
+        return Expense.builder().name(name).category(category).amount(amount).build();
+    }
+}
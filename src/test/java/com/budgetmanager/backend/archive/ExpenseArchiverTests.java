@@ -0,0 +1,177 @@
+package com.budgetmanager.backend.archive;
+
+import com.budgetmanager.backend.analytics.ExpenseAggregator;
+import com.budgetmanager.backend.analytics.ExpenseColumns;
+import com.budgetmanager.backend.analytics.ExpenseColumnsLoader;
+import com.budgetmanager.backend.analytics.ExpenseTotals;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.shard.ShardedExpenseStore;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+
+class ExpenseArchiverTests {
+
+    private static final Instant OLD = Instant.parse("2020-03-01T10:15:30Z");
+    private static final Instant CUTOFF = Instant.parse("2021-01-01T00:00:00Z");
+
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:expense_archive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ExpenseColumnsLoader columnsLoader = new ExpenseColumnsLoader(jdbcTemplate);
+
+    @TempDir
+    Path archiveDir;
+
+    private ExpenseArchive archive;
+    private ExpenseArchiver archiver;
+    private final List<Long> archivedUsers = new ArrayList<>();
+
+    @BeforeEach
+    void migrate() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        archive = new ExpenseArchive(archiveDir.toString(), 100);
+        archiver = new ExpenseArchiver(dataSource, new DataSourceTransactionManager(dataSource), archive, Duration.ofDays(365),
+                archivedUsers::add);
+        for (long userId = 1; userId <= 2; userId++) {
+            jdbcTemplate.update("INSERT INTO _user (id, username, password, budget, email) VALUES (?, ?, 'x', 0, ?)",
+                    userId, "user" + userId, "user" + userId + "@x");
+            jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) VALUES (?, ?, 'Food')", userId * 10, userId);
+            jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) VALUES (?, ?, 'Rent')", userId * 10 + 1, userId);
+        }
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void movesOldExpensesIntoASegmentThatReadsBackUnchanged() throws Exception {
+        insert(1, 10, "Café, \"latte\"", 450, OLD);
+        insert(1, 11, "Rent", 70000, OLD.plusSeconds(86400));
+        insert(1, 10, "Refund", -125, OLD.minusSeconds(3600));
+        insert(1, 10, "Lunch", 1210, Instant.now());
+        insert(2, 20, "Someone else", 999, OLD);
+        ExpenseColumns before = columnsLoader.load(1);
+
+        assertThat(archiver.archiveOlderThan(CUTOFF)).isEqualTo(4);
+
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM expense WHERE user_id = 1", String.class)).containsExactly("Lunch");
+        assertThat(archivedSegments(1)).isEqualTo(1);
+        assertThat(archivedSegments(2)).isEqualTo(1);
+        assertThat(archivedUsers).containsExactlyInAnyOrder(1L, 2L);
+
+        ExpenseSegment segment = archive.open(1, 1);
+        assertThat(segment.rows()).isEqualTo(3);
+        assertThat(segment.totalMinor()).isEqualTo(450 + 70000 - 125);
+        assertThat(segment.firstCreatedAt()).isEqualTo(OLD);
+        assertThat(segment.categories()).containsExactly(
+                new ExpenseSegment.CategorySummary("Food", 325, 2),
+                new ExpenseSegment.CategorySummary("Rent", 70000, 1));
+        assertThat(archive.open(1, 1)).isSameAs(segment);
+        assertThat(archive.categories(1, 1)).isEqualTo(segment.categories());
+
+        ExpenseColumns after = archive.withArchived(1, archivedSegments(1), columnsLoader.load(1));
+        assertThat(after.size()).isEqualTo(before.size());
+        assertThat(ExpenseAggregator.total(after)).isEqualTo(ExpenseAggregator.total(before));
+        assertThat(totalsByName(after)).isEqualTo(totalsByName(before));
+
+        // Totals come from the segment headers alone
+        ExpenseTotals totals = ExpenseTotals.of(columnsLoader.load(1));
+        archive.addArchivedTotals(1, archivedSegments(1), totals);
+        assertThat(totals.count()).isEqualTo(before.size());
+        assertThat(totals.totalMinor()).isEqualTo(ExpenseAggregator.total(before));
+        assertThat(totals.byCategory()).containsExactly(entry("Food", 1210L + 450 - 125), entry("Rent", 70000L));
+
+        StringWriter csv = new StringWriter();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardedExpenseStore> noShards = mock(ObjectProvider.class);
+        // A user loaded before the run still exports the archived rows
+        User stale = User.builder().id(1L).archivedSegments(0).build();
+        new ExpenseExporter(dataSource, new DataSourceTransactionManager(dataSource), archive, noShards, 2, 60).writeCsv(stale, csv);
+        assertThat(csv.toString().lines().toList()).hasSize(5)
+                .startsWith("id,created_at,name,category,amount")
+                .contains("1,2020-03-01T10:15:30Z,\"Café, \"\"latte\"\"\",Food,4.50",
+                        "3,2020-03-01T09:15:30Z,Refund,Food,-1.25");
+        assertThat(csv.toString().lines().skip(4).findFirst().orElseThrow()).contains(",Lunch,Food,12.10");
+    }
+
+    @Test
+    void laterRunsAppendSegments() {
+        insert(1, 10, "Old", 100, OLD);
+        archiver.archiveOlderThan(CUTOFF);
+        insert(1, 11, "Newer", 200, CUTOFF.plusSeconds(60));
+
+        assertThat(archiver.archiveOlderThan(CUTOFF)).isZero();
+        assertThat(archiver.archiveOlderThan(CUTOFF.plusSeconds(3600))).isEqualTo(1);
+
+        assertThat(archivedSegments(1)).isEqualTo(2);
+        assertThat(archive.open(1, 2).categories()).containsExactly(new ExpenseSegment.CategorySummary("Rent", 200, 1));
+        assertThat(ExpenseAggregator.total(archive.withArchived(1, 2, columnsLoader.load(1)))).isEqualTo(300);
+    }
+
+    @Test
+    void failedRunLeavesRowsLiveAndItsSegmentUnread() throws Exception {
+        insert(1, 10, "Old", 100, OLD);
+        // A directory where the segment should go makes writing it fail
+        Files.createDirectories(archive.segmentPath(1, 1).resolve("blocker"));
+
+        assertThat(archiver.archiveOlderThan(CUTOFF)).isZero();
+        assertThat(archivedSegments(1)).isZero();
+        assertThat(archivedUsers).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense WHERE user_id = 1", Long.class)).isEqualTo(1);
+
+        // A leftover file is ignored until the next run replaces it
+        Files.delete(archive.segmentPath(1, 1).resolve("blocker"));
+        Files.delete(archive.segmentPath(1, 1));
+        Files.writeString(archive.segmentPath(1, 1), "half-written");
+        assertThat(archive.withArchived(1, archivedSegments(1), columnsLoader.load(1)).size()).isEqualTo(1);
+
+        assertThat(archiver.archiveOlderThan(CUTOFF)).isEqualTo(1);
+        assertThat(archive.open(1, 1).rows()).isEqualTo(1);
+    }
+
+    private void insert(long userId, long categoryId, String name, long amountMinor, Instant createdAt) {
+        jdbcTemplate.update("INSERT INTO expense (name, category_id, amount_minor, user_id, created_at) VALUES (?, ?, ?, ?, ?)",
+                name, categoryId, amountMinor, userId, Timestamp.from(createdAt));
+    }
+
+    private int archivedSegments(long userId) {
+        return jdbcTemplate.queryForObject("SELECT archived_segments FROM _user WHERE id = ?", Integer.class, userId);
+    }
+
+    private User user(long userId) {
+        return User.builder().id(userId).archivedSegments(archivedSegments(userId)).build();
+    }
+
+    private static List<String> totalsByName(ExpenseColumns columns) {
+        long[] totals = ExpenseAggregator.totalsByCategory(columns);
+        List<String> byName = new ArrayList<>();
+        for (int code = 0; code < totals.length; code++) {
+            byName.add(columns.categoryName(code) + "=" + totals[code]);
+        }
+        byName.sort(null);
+        return byName;
+    }
+}
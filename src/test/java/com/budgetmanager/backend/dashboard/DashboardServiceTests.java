@@ -0,0 +1,103 @@
+package com.budgetmanager.backend.dashboard;
+
+import com.budgetmanager.backend.analytics.ExpenseAnalyticsService;
+import com.budgetmanager.backend.dto.DashboardDto;
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.profile.ProfileResponseCache;
+import com.budgetmanager.backend.service.ExpenseService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExpenseService expenseService = mock(ExpenseService.class);
+    private final ExpenseAnalyticsService analyticsService = mock(ExpenseAnalyticsService.class);
+    private final User user = User.builder().id(7L).username("dana").email("d@x.io").budget(500).build();
+    private final List<Expense> recent = List.of(Expense.builder().id(2L).name("Taxi").category("Travel").amount(20).build());
+    private final DashboardDto.Summary summary = DashboardDto.Summary.builder()
+            .count(1).total(20).remaining(480).categoryTotals(Map.of("Travel", 20.0)).build();
+
+    private DashboardService service;
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void runsTheDatabasePartsConcurrently() throws Exception {
+        // Each sub-fetch waits for the other to start, so run one after the other they would fail
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(expenseService.findRecent(7L, 10)).thenAnswer(invocation -> awaitBoth(bothStarted, recent));
+        when(analyticsService.dashboardSummary(user)).thenAnswer(invocation -> awaitBoth(bothStarted, summary));
+        service = service(2, 5000);
+
+        DashboardDto dashboard = service.load(user, "https://budget.example", DashboardService.FIELDS, 10);
+
+        assertThat(dashboard.getBudget()).isEqualTo(500);
+        assertThat(dashboard.getRecentExpenses()).isEqualTo(recent);
+        assertThat(dashboard.getSummary()).isEqualTo(summary);
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(dashboard));
+        assertThat(json.get("profile").get("username").asText()).isEqualTo("dana");
+    }
+
+    @Test
+    void loadsOnlyTheSelectedFields() throws Exception {
+        service = service(2, 5000);
+
+        DashboardDto dashboard = service.load(user, "https://budget.example", Set.of("budget"), 10);
+
+        assertThat(objectMapper.writeValueAsString(dashboard)).isEqualTo("{\"budget\":500.0}");
+        verify(expenseService, never()).findRecent(anyLong(), anyInt());
+        verify(analyticsService, never()).dashboardSummary(any());
+    }
+
+    @Test
+    void givesUpAfterTheTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(expenseService.findRecent(7L, 10)).thenAnswer(invocation -> {
+            release.await();
+            return recent;
+        });
+        service = service(2, 50);
+
+        assertThatThrownBy(() -> service.load(user, "https://budget.example", Set.of("expenses"), 10))
+                .isInstanceOf(TimeoutException.class);
+        release.countDown();
+    }
+
+    private DashboardService service(int threads, long timeoutMillis) {
+        return new DashboardService(expenseService, analyticsService, new ProfileResponseCache(objectMapper, 100),
+                new SimpleMeterRegistry(), threads, 10, timeoutMillis);
+    }
+
+    private static <T> T awaitBoth(CountDownLatch latch, T result) throws InterruptedException {
+        latch.countDown();
+        if (!latch.await(2, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The other sub-fetch never started");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package com.budgetmanager.backend.datasource;
+
+import com.budgetmanager.backend.config.DataSourceRoutingConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingTests {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:rw_replica;DB_CLOSE_DELAY=-1";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+            .withUserConfiguration(DataSourceRoutingConfig.class)
+            .withPropertyValues(
+                    "app.datasource.routing.enabled=true",
+                    "app.datasource.read-your-writes-window-ms=60000",
+                    "spring.datasource.url=jdbc:h2:mem:rw_primary;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.hikari.pool-name=primary",
+                    "spring.datasource.hikari.maximum-pool-size=3",
+                    "app.datasource.replicas[0].jdbc-url=" + REPLICA_URL,
+                    "app.datasource.replicas[0].maximum-pool-size=2");
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            seedNodeNames(context.getBean("primaryDataSource", HikariDataSource.class), "primary");
+            seedNodeNames(new DriverManagerDataSource(REPLICA_URL), "replica");
+
+            assertThat(nodeName(dataSource, true)).isEqualTo("replica");
+            assertThat(nodeName(dataSource, false)).isEqualTo("primary");
+            assertThat(context.getBean("primaryDataSource", HikariDataSource.class).getMaximumPoolSize()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void usersReadTheirOwnWritesFromPrimary() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            seedNodeNames(context.getBean("primaryDataSource", HikariDataSource.class), "primary");
+            seedNodeNames(new DriverManagerDataSource(REPLICA_URL), "replica");
+            // The proxy probes the primary once for connection defaults (Hibernate does this at boot)
+            nodeName(dataSource, false);
+
+            authenticate("alice");
+            assertThat(nodeName(dataSource, true)).isEqualTo("replica");
+            nodeName(dataSource, false);
+            assertThat(nodeName(dataSource, true)).isEqualTo("primary");
+
+            authenticate("bob");
+            assertThat(nodeName(dataSource, true)).isEqualTo("replica");
+        });
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() {
+        contextRunner
+                .withPropertyValues(
+                        "app.datasource.replicas[0].jdbc-url=jdbc:h2:mem:rw_missing;IFEXISTS=TRUE",
+                        "app.datasource.replicas[0].connection-timeout=250")
+                .run(context -> {
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    seedNodeNames(context.getBean("primaryDataSource", HikariDataSource.class), "primary");
+
+                    assertThat(nodeName(dataSource, true)).isEqualTo("primary");
+                    assertThat(nodeName(dataSource, true)).isEqualTo("primary");
+                });
+    }
+
+    private static String nodeName(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    private static void seedNodeNames(DataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+}
@@ -0,0 +1,165 @@
+package com.budgetmanager.backend.groupcommit;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.ExpenseCategory;
+import com.budgetmanager.backend.model.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpenseGroupCommitterTests {
+
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:group_commit;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final AtomicInteger commits = new AtomicInteger();
+    private final CountDownLatch commitStarted = new CountDownLatch(1);
+    private final CountDownLatch commitGate = new CountDownLatch(1);
+    private volatile boolean holdCommits;
+
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource) {
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            try {
+                if (holdCommits) {
+                    commitStarted.countDown();
+                    commitGate.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            commits.incrementAndGet();
+            super.doCommit(status);
+        }
+    };
+
+    private final User user = User.builder().id(1L).build();
+    private final ExpenseCategory category = ExpenseCategory.builder().id(1).build();
+
+    @BeforeEach
+    void createSchema() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("INSERT INTO _user (id, username, password, budget, email) VALUES (1, 'a', 'x', 0, 'a@x')");
+        jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) VALUES (1, 1, 'Food')");
+    }
+
+    @AfterEach
+    void dropSchema() {
+        commitGate.countDown();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void concurrentInsertsShareCommitsAndGetTheirOwnIds() throws Exception {
+        int writers = 16;
+        int perWriter = 25;
+        List<Expense> saved = new ArrayList<>();
+        try (ExpenseGroupCommitter committer = new ExpenseGroupCommitter(dataSource, transactionManager, 50, 20, 1000, 5000)) {
+            ExecutorService pool = Executors.newFixedThreadPool(writers);
+            List<CompletableFuture<Expense>> results = new ArrayList<>();
+            for (int i = 0; i < writers * perWriter; i++) {
+                Expense expense = expense("Expense " + i);
+                results.add(CompletableFuture.supplyAsync(() -> committer.insert(expense), pool));
+            }
+            for (CompletableFuture<Expense> result : results) {
+                saved.add(result.get(10, TimeUnit.SECONDS));
+            }
+            pool.shutdown();
+        }
+
+        assertThat(saved).extracting(Expense::getId).doesNotContainNull().doesNotHaveDuplicates();
+        for (Expense expense : saved) {
+            assertThat(jdbcTemplate.queryForObject("SELECT name FROM expense WHERE id = ?", String.class, expense.getId()))
+                    .isEqualTo(expense.getName());
+        }
+        assertThat(commits.get()).isLessThan(writers * perWriter / 4);
+    }
+
+    @Test
+    void aBadRowFailsAloneWhileTheRestOfItsBatchCommits() throws Exception {
+        try (ExpenseGroupCommitter committer = new ExpenseGroupCommitter(dataSource, transactionManager, 10, 500, 100, 5000)) {
+            CompletableFuture<Expense> before = committer.submit(expense("Lunch"));
+            CompletableFuture<Expense> tooLong = committer.submit(expense("x".repeat(300)));
+            CompletableFuture<Expense> after = committer.submit(expense("Dinner"));
+
+            assertThat(before.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+            assertThat(after.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+            assertThat(tooLong).failsWithin(5, TimeUnit.SECONDS);
+        }
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM expense ORDER BY id", String.class))
+                .containsExactly("Lunch", "Dinner");
+    }
+
+    @Test
+    void rejectsWritesOnceTheQueueIsFull() throws Exception {
+        holdCommits = true;
+        try (ExpenseGroupCommitter committer = new ExpenseGroupCommitter(dataSource, transactionManager, 1, 0, 2, 5000)) {
+            CompletableFuture<Expense> inFlight = committer.submit(expense("Being committed"));
+            // The writer is now stuck committing, so nothing leaves the queue
+            assertThat(commitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            committer.submit(expense("Queued 1"));
+            committer.submit(expense("Queued 2"));
+
+            assertThatThrownBy(() -> committer.insert(expense("One too many")))
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            commitGate.countDown();
+            assertThat(inFlight.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+    }
+
+    @Test
+    void aWriteThatTimesOutIsRejectedAndWithdrawn() throws Exception {
+        holdCommits = true;
+        try (ExpenseGroupCommitter committer = new ExpenseGroupCommitter(dataSource, transactionManager, 1, 0, 10, 100)) {
+            CompletableFuture<Expense> inFlight = committer.submit(expense("Being committed"));
+            assertThat(commitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> committer.insert(expense("Stuck behind it")))
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            commitGate.countDown();
+            assertThat(inFlight.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM expense", String.class)).containsExactly("Being committed");
+    }
+
+    @Test
+    void aWriteAlreadyTakenByTheWriterIsWaitedForPastTheTimeout() throws Exception {
+        holdCommits = true;
+        try (ExpenseGroupCommitter committer = new ExpenseGroupCommitter(dataSource, transactionManager, 1, 0, 10, 100)) {
+            CompletableFuture<Expense> result =
+                    CompletableFuture.supplyAsync(() -> committer.insert(expense("Being committed")));
+            assertThat(commitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(300);
+            assertThat(result).isNotDone();
+
+            commitGate.countDown();
+            assertThat(result.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM expense", String.class)).containsExactly("Being committed");
+    }
+
+    private Expense expense(String name) {
+        return Expense.builder().name(name).amount(1.5).user(user).categoryRef(category).build();
+    }
+}
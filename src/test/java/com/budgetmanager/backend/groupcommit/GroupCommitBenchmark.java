@@ -0,0 +1,150 @@
+package com.budgetmanager.backend.groupcommit;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.model.ExpenseCategory;
+import com.budgetmanager.backend.model.User;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Expense inserts with one transaction per row (what addExpense does without group commit)
+ * versus {@link ExpenseGroupCommitter} with its default settings, at 1, 8 and 32 concurrent
+ * writers. Throughput mode gives inserts/ms, sample mode the per-insert latency percentiles.
+ *
+ * Runs against an H2 file database, which does not fsync on every commit. commitLatencyMicros
+ * adds a pause to each commit to stand in for the log flush MySQL does with
+ * innodb_flush_log_at_trx_commit=1; the pauses overlap freely across connections, which
+ * favours the per-row path.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=GroupCommit
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupCommitBenchmark {
+
+    @Param({"0", "1000"})
+    public long commitLatencyMicros;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ExpenseGroupCommitter committer;
+    private User user;
+    private ExpenseCategory category;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:./target/benchmark/group-commit;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        dataSource.setMaximumPoolSize(10);
+        Flyway flyway = Flyway.configure().dataSource(dataSource).cleanDisabled(false).load();
+        flyway.clean();
+        flyway.migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO _user (id, username, password, budget, email) VALUES (1, 'a', 'x', 0, 'a@x')");
+        jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) VALUES (1, 1, 'Food')");
+        user = User.builder().id(1L).build();
+        category = ExpenseCategory.builder().id(1).build();
+
+        long commitLatencyNanos = TimeUnit.MICROSECONDS.toNanos(commitLatencyMicros);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource) {
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+                super.doCommit(status);
+                if (commitLatencyNanos > 0) {
+                    LockSupport.parkNanos(commitLatencyNanos);
+                }
+            }
+        };
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        committer = new ExpenseGroupCommitter(dataSource, transactionManager, 100, 0, 2000, 5000);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        committer.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long perRowCommit1() {
+        return perRowCommit();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long perRowCommit8() {
+        return perRowCommit();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public long perRowCommit32() {
+        return perRowCommit();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long groupCommit1() {
+        return committer.insert(expense()).getId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long groupCommit8() {
+        return committer.insert(expense()).getId();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public long groupCommit32() {
+        return committer.insert(expense()).getId();
+    }
+
+    private long perRowCommit() {
+        Expense expense = expense();
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ExpenseGroupCommitter.INSERT, Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, expense.getName());
+            statement.setInt(2, category.getId());
+            statement.setLong(3, 150);
+            statement.setLong(4, user.getId());
+            return statement;
+        }, keys));
+        return keys.getKey().longValue();
+    }
+
+    private Expense expense() {
+        return Expense.builder().name("Coffee").amount(1.5).user(user).categoryRef(category).build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.budgetmanager.backend.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class TokenRevocationTests {
+
+    private static final String PASSWORD = "revocation-pw-1";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void logoutEverywhereRejectsEarlierTokens() throws Exception {
+        String first = register("revoke-logout");
+        String second = login("revoke-logout", PASSWORD);
+        mvc.perform(authorized(first)).andExpect(status().isOk());
+
+        mvc.perform(post("/api/auth/logout-all").header("Authorization", "Bearer " + second))
+                .andExpect(status().isOk());
+
+        mvc.perform(authorized(first)).andExpect(status().isForbidden());
+        mvc.perform(authorized(second)).andExpect(status().isForbidden());
+        mvc.perform(authorized(login("revoke-logout", PASSWORD))).andExpect(status().isOk());
+    }
+
+    @Test
+    void passwordChangeRejectsEarlierTokensButNotTheOneItReturns() throws Exception {
+        String before = register("revoke-password");
+        String body = objectMapper.writeValueAsString(Map.of("currentPassword", PASSWORD,
+                "newPassword", PASSWORD + "x", "confirmationPassword", PASSWORD + "x"));
+
+        String response = mvc.perform(post("/api/auth/change-password").header("Authorization", "Bearer " + before)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String after = objectMapper.readTree(response).get("token").asText();
+
+        mvc.perform(authorized(before)).andExpect(status().isForbidden());
+        mvc.perform(authorized(after)).andExpect(status().isOk());
+    }
+
+    private String register(String username) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("username", username, "password", PASSWORD,
+                "email", username + "@x.io"));
+        return token(mvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("username", username, "password", password));
+        return token(mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private String token(String response) throws Exception {
+        return objectMapper.readTree(response).get("token").asText();
+    }
+
+    private static RequestBuilder authorized(String token) {
+        return get("/api/data/budget").header("Authorization", "Bearer " + token);
+    }
+}
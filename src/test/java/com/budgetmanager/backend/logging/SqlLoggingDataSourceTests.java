@@ -0,0 +1,84 @@
+package com.budgetmanager.backend.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlLoggingDataSourceTests {
+
+    private final DataSource database = new DriverManagerDataSource("jdbc:h2:mem:sql_logging;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private final Logger sqlLogger = (Logger) LoggerFactory.getLogger("sql");
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        events.start();
+        sqlLogger.addAppender(events);
+        new JdbcTemplate(database).execute("CREATE TABLE account (id BIGINT PRIMARY KEY, name VARCHAR(64), password VARCHAR(64))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        sqlLogger.detachAppender(events);
+        new JdbcTemplate(database).execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void logsSlowStatementsWithBindsAndTimings() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SqlLoggingDataSource(database, 0, 0));
+        jdbcTemplate.update("INSERT INTO account (id, name) VALUES (?, ?)", 1L, "alice");
+        jdbcTemplate.update("UPDATE account SET password = ? WHERE id = ?", "hash", 1L);
+        jdbcTemplate.batchUpdate("INSERT INTO account (id, name) VALUES (?, ?)", List.of(
+                new Object[]{2L, "bob"}, new Object[]{3L, "carol"}));
+
+        assertThat(events.list).hasSize(3).allMatch(e -> e.getLevel() == Level.WARN);
+        assertThat(events.list.get(0).getFormattedMessage())
+                .startsWith("Slow SQL in ")
+                .endsWith("INSERT INTO account (id, name) VALUES (?, ?) binds=[1, alice]");
+        assertThat(events.list.get(0).getKeyValuePairs()).anyMatch(kv -> kv.key.equals("elapsedMicros"));
+        assertThat(events.list.get(1).getFormattedMessage()).endsWith("binds=[hidden]").doesNotContain("hash");
+        assertThat(events.list.get(2).getKeyValuePairs()).anyMatch(kv -> kv.key.equals("batchSize") && kv.value.equals(2));
+    }
+
+    @Test
+    void fastStatementsAreOnlyLoggedWhenSampled() {
+        new JdbcTemplate(new SqlLoggingDataSource(database, 60_000, 0)).queryForList("SELECT * FROM account");
+        assertThat(events.list).isEmpty();
+
+        new JdbcTemplate(new SqlLoggingDataSource(database, -1, 1)).queryForList("SELECT * FROM account WHERE id = ?", 5L);
+        assertThat(events.list).singleElement().satisfies(e -> {
+            assertThat(e.getLevel()).isEqualTo(Level.INFO);
+            assertThat(e.getFormattedMessage()).startsWith("Sampled SQL").endsWith("binds=[5]");
+        });
+    }
+
+    @Test
+    void securityDebugOnlyForFlaggedRequests() {
+        SecurityDebugTurboFilter filter = new SecurityDebugTurboFilter();
+        Logger security = (Logger) LoggerFactory.getLogger("org.springframework.security.web.FilterChainProxy");
+        Logger other = (Logger) LoggerFactory.getLogger("org.hibernate.SQL");
+
+        assertThat(filter.decide(null, security, Level.DEBUG, null, null, null)).hasToString("NEUTRAL");
+        MDC.put(SecurityDebugTurboFilter.MDC_KEY, "true");
+        try {
+            assertThat(filter.decide(null, security, Level.DEBUG, null, null, null)).hasToString("ACCEPT");
+            assertThat(filter.decide(null, security, Level.TRACE, null, null, null)).hasToString("NEUTRAL");
+            assertThat(filter.decide(null, other, Level.DEBUG, null, null, null)).hasToString("NEUTRAL");
+        } finally {
+            MDC.remove(SecurityDebugTurboFilter.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.budgetmanager.backend.profile;
+
+import com.budgetmanager.backend.file.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfilePhotoServiceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolExecutor executor =
+            new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final FileStorageService storage = new FileStorageService();
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        storage.init();
+        Files.createDirectories(uploadDir.resolve("alice"));
+        Files.write(uploadDir.resolve("alice/avatar.png"), new byte[]{1, 2, 3});
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void servesPhotosFromTheExecutor() throws Exception {
+        ProfilePhotoService service = new ProfilePhotoService(storage, executor, 5000, meterRegistry);
+
+        ResponseEntity<byte[]> photo = service.load("alice/avatar.png").get(5, TimeUnit.SECONDS);
+        assertThat(photo.getStatusCode().value()).isEqualTo(200);
+        assertThat(photo.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(photo.getBody()).containsExactly(1, 2, 3);
+
+        assertThat(service.load("alice/missing.png").get(5, TimeUnit.SECONDS).getStatusCode().value()).isEqualTo(404);
+    }
+
+    @Test
+    void rejectsImmediatelyWhenSaturated() throws Exception {
+        ProfilePhotoService service = new ProfilePhotoService(storage, executor, 5000, meterRegistry);
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        ResponseEntity<byte[]> rejected = service.load("alice/avatar.png").getNow(null);
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.getStatusCode().value()).isEqualTo(503);
+        assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.counter("profile.photos.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        while (executor.getCompletedTaskCount() < 2) {
+            Thread.onSpinWait();
+        }
+        assertThat(service.load("alice/avatar.png").get(5, TimeUnit.SECONDS).getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void answersUnavailableWhenTheReadTakesTooLong() throws Exception {
+        ProfilePhotoService service = new ProfilePhotoService(storage, executor, 50, meterRegistry);
+        executor.execute(this::awaitRelease);
+
+        assertThat(service.load("alice/avatar.png").get(5, TimeUnit.SECONDS).getStatusCode().value()).isEqualTo(503);
+        assertThat(meterRegistry.counter("profile.photos.timed.out").count()).isEqualTo(1);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.budgetmanager.backend.profile;
+
+import com.budgetmanager.backend.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileResponseCacheTests {
+
+    private static final String BASE_URL = "https://budget.example";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProfileResponseCache cache = new ProfileResponseCache(objectMapper, 100);
+
+    @Test
+    void reusesTheSerializedProfileUntilTheVersionMoves() throws Exception {
+        User user = User.builder().id(1L).username("alice").email("a@x.io").fullName("Alice").build();
+
+        ProfileResponseCache.Entry first = cache.get(user, BASE_URL);
+        assertThat(cache.get(user, BASE_URL)).isSameAs(first);
+        JsonNode profile = objectMapper.readTree(first.profile());
+        assertThat(profile.get("username").asText()).isEqualTo("alice");
+        assertThat(profile.get("profilePhotoUrl").isNull()).isTrue();
+        assertThat(objectMapper.readTree(first.photoUrl()).get("photoUrl").isNull()).isTrue();
+
+        user.setProfilePhotoPath("alice/p 1.png");
+        user.setVersion(user.getVersion() + 1);
+        ProfileResponseCache.Entry second = cache.get(user, BASE_URL);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.etag()).isNotEqualTo(first.etag());
+        assertThat(objectMapper.readTree(second.photoUrl()).get("photoUrl").asText())
+                .isEqualTo(BASE_URL + "/api/profile/photo/alice/p%201.png");
+    }
+
+    @Test
+    void rebuildsForADifferentBaseUrl() throws Exception {
+        User user = User.builder().id(2L).username("bob").email("b@x.io").profilePhotoPath("bob/p.png").build();
+
+        ProfileResponseCache.Entry external = cache.get(user, BASE_URL);
+        ProfileResponseCache.Entry internal = cache.get(user, "http://10.0.0.5:8080");
+        assertThat(internal).isNotSameAs(external);
+        assertThat(objectMapper.readTree(internal.profile()).get("profilePhotoUrl").asText())
+                .isEqualTo("http://10.0.0.5:8080/api/profile/photo/bob/p.png");
+    }
+
+    @Test
+    void evictDropsTheEntry() {
+        User user = User.builder().id(3L).username("carol").email("c@x.io").build();
+
+        ProfileResponseCache.Entry entry = cache.get(user, BASE_URL);
+        cache.evict(3L);
+        ProfileResponseCache.Entry rebuilt = cache.get(user, BASE_URL);
+        assertThat(rebuilt).isNotSameAs(entry);
+        assertThat(rebuilt.profile()).isEqualTo(entry.profile());
+        assertThat(rebuilt.etag()).isEqualTo(entry.etag());
+    }
+
+    @Test
+    void aFullCacheDropsOnlyASmallBatchForANewUser() {
+        for (long id = 1; id <= 100; id++) {
+            cache.get(User.builder().id(id).username("u" + id).email(id + "@x.io").build(), BASE_URL);
+        }
+        cache.get(User.builder().id(101L).username("u101").email("101@x.io").build(), BASE_URL);
+
+        assertThat(cache.size()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,100 @@
+package com.budgetmanager.backend.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of RateLimitFilter on a limited route, against a route it lets straight
+ * through (same OncePerRequestFilter bookkeeping, no bucket). The difference between the two
+ * is what the limiter adds; {@code bucketOnly} isolates the token bucket itself.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RateLimit
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitFilterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private RateLimitFilter filter;
+    private RateLimiter limiter;
+
+    // Mock requests aren't thread-safe, so each thread cycles through its own copies of the same clients
+    @State(Scope.Thread)
+    public static class Clients {
+        final MockHttpServletRequest[] requests = new MockHttpServletRequest[CLIENTS];
+        final MockHttpServletRequest unlimited = new MockHttpServletRequest("GET", "/api/data/budget");
+        final String[] keys = new String[CLIENTS];
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        int next;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < CLIENTS; i++) {
+                MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+                request.setRemoteAddr("10.0." + (i / 256) + "." + (i % 256));
+                requests[i] = request;
+                keys[i] = "ip:" + request.getRemoteAddr();
+            }
+        }
+
+        int nextIndex() {
+            int i = next;
+            next = i + 1 == CLIENTS ? 0 : i + 1;
+            return i;
+        }
+
+        MockHttpServletRequest nextRequest() {
+            return requests[nextIndex()];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // Large buckets so every request takes the "allowed" path, which is the common case
+        filter = new RateLimitFilter(true, 1_000_000_000L, 1_000_000_000L, 5, 5,
+                60, 120, 60);
+        limiter = new RateLimiter(1_000_000_000L, 1_000_000_000L);
+    }
+
+    @Benchmark
+    public void unlimitedRoute(Clients clients) throws Exception {
+        filter.doFilter(clients.unlimited, clients.response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision bucketOnly(Clients clients) {
+        return limiter.tryAcquire(clients.keys[clients.nextIndex()]);
+    }
+
+    @Benchmark
+    public void rateLimited(Clients clients) throws Exception {
+        filter.doFilter(clients.nextRequest(), clients.response, NO_OP_CHAIN);
+    }
+
+    // Eight threads walking the same clients, so buckets see CAS contention (needs 8 cores to mean much)
+    @Benchmark
+    @Threads(8)
+    public void rateLimitedContended(Clients clients) throws Exception {
+        filter.doFilter(clients.nextRequest(), clients.response, NO_OP_CHAIN);
+    }
+}
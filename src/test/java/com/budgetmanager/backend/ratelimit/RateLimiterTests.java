@@ -0,0 +1,68 @@
+package com.budgetmanager.backend.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    // 3 requests of burst, one more every 10 seconds
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final RateLimiter limiter = new RateLimiter(3, 6, now::get);
+
+    @Test
+    void admitsTheBurstThenRejects() {
+        assertThat(limiter.tryAcquire("a")).isEqualTo(new RateLimiter.Decision(true, 3, 2, 10));
+        assertThat(limiter.tryAcquire("a").remaining()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a").remaining()).isZero();
+
+        RateLimiter.Decision rejected = limiter.tryAcquire("a");
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.resetSeconds()).isEqualTo(10);
+        // Other keys have their own buckets
+        assertThat(limiter.tryAcquire("b").allowed()).isTrue();
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a");
+        }
+        advance(9);
+        assertThat(limiter.tryAcquire("a").allowed()).isFalse();
+
+        advance(1);
+        assertThat(limiter.tryAcquire("a").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("a").allowed()).isFalse();
+
+        // Never more than the capacity, however long the key was idle
+        advance(3600);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("a").allowed()).isTrue();
+        }
+        assertThat(limiter.tryAcquire("a").allowed()).isFalse();
+    }
+
+    @Test
+    void sweepDropsOnlyFullyRefilledBuckets() {
+        limiter.tryAcquire("idle");
+        advance(5);
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("busy");
+
+        advance(6);
+        limiter.sweep();
+
+        assertThat(limiter.size()).isEqualTo(1);
+        // "busy" kept its state: one more request fits, a fresh bucket would take three
+        assertThat(limiter.tryAcquire("busy").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("busy").allowed()).isFalse();
+    }
+
+    private void advance(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,118 @@
+package com.budgetmanager.backend.report;
+
+import com.budgetmanager.backend.archive.ExpenseArchive;
+import com.budgetmanager.backend.model.MinorUnitsConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The system-wide spending report over 10,000 users with 100 expenses each (1M rows) in an H2
+ * file database. perUserBaseline is the straightforward version: list the users, then load
+ * each user's expenses with their category names and add them up in Java. chunked is
+ * {@link SpendingReportJob} at the given parallelism; on a machine with fewer cores than
+ * threads the gain beyond 1 comes only from overlapping I/O.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SpendingReport
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpendingReportBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int EXPENSES_PER_USER = 100;
+    private static final int CATEGORIES_PER_USER = 8;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SpendingReportJob job;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:./target/benchmark/spending-report;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        dataSource.setMaximumPoolSize(8);
+        Flyway flyway = Flyway.configure().dataSource(dataSource).cleanDisabled(false).load();
+        flyway.clean();
+        flyway.migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO _user (id, username, password, budget, email) "
+                + "SELECT x, CONCAT('user', x), 'x', MOD(x, 7) * 1000, CONCAT('user', x, '@x') FROM SYSTEM_RANGE(1, ?) AS r (x)", USERS);
+        jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) "
+                + "SELECT x, (x - 1) / ? + 1, CONCAT('Category ', MOD(x - 1, ?)) FROM SYSTEM_RANGE(1, ?) AS r (x)",
+                CATEGORIES_PER_USER, CATEGORIES_PER_USER, USERS * CATEGORIES_PER_USER);
+        jdbcTemplate.update("INSERT INTO expense (name, category_id, amount_minor, user_id) "
+                + "SELECT CONCAT('Expense ', x), ((x - 1) / ?) * ? + MOD(x, ?) + 1, MOD(x * 7919, 10000), (x - 1) / ? + 1 "
+                + "FROM SYSTEM_RANGE(1, ?) AS r (x)",
+                EXPENSES_PER_USER, CATEGORIES_PER_USER, CATEGORIES_PER_USER, EXPENSES_PER_USER, USERS * EXPENSES_PER_USER);
+
+        job = new SpendingReportJob(dataSource, new DataSourceTransactionManager(dataSource),
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                new ExpenseArchive("target/benchmark/archive", 100), parallelism, 1000, 1000, 100,
+                Path.of("target/benchmark/reports"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object perUserBaseline() {
+        long totalSpent = 0;
+        long overBudget = 0;
+        Map<String, Long> byCategory = new HashMap<>();
+        List<Map<String, Object>> users = jdbcTemplate.queryForList("SELECT id, budget FROM _user");
+        for (Map<String, Object> user : users) {
+            List<Map<String, Object>> expenses = jdbcTemplate.queryForList(
+                    "SELECT c.name, e.amount_minor FROM expense e JOIN expense_category c ON c.id = e.category_id "
+                            + "WHERE e.user_id = ?", user.get("id"));
+            long spent = 0;
+            for (Map<String, Object> expense : expenses) {
+                long amount = ((Number) expense.get("amount_minor")).longValue();
+                spent += amount;
+                byCategory.merge((String) expense.get("name"), amount, Long::sum);
+            }
+            double budget = ((Number) user.get("budget")).doubleValue();
+            if (budget > 0 && MinorUnitsConverter.toMajor(spent) > budget) {
+                overBudget++;
+            }
+            totalSpent += spent;
+        }
+        return new Object[]{totalSpent, overBudget, byCategory};
+    }
+
+    @Benchmark
+    public SpendingReport chunked() {
+        return job.generate();
+    }
+}
@@ -0,0 +1,141 @@
+package com.budgetmanager.backend.report;
+
+import com.budgetmanager.backend.archive.ExpenseArchive;
+import com.budgetmanager.backend.archive.ExpenseArchiver;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.within;
+
+class SpendingReportJobTests {
+
+    private static final int USERS = 25;
+
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:spending_report;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path outputDir;
+
+    @TempDir
+    Path archiveDir;
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        // Users 1..25 with a gap at 13; budget 100 each, user 7 has none set
+        for (long id = 1; id <= USERS; id++) {
+            if (id == 13) {
+                continue;
+            }
+            jdbcTemplate.update("INSERT INTO _user (id, username, password, budget, email) VALUES (?, ?, 'x', ?, ?)",
+                    id, "user" + id, id == 7 ? 0 : 100, "user" + id + "@x");
+            jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) VALUES (?, ?, 'Food')", id * 2, id);
+            jdbcTemplate.update("INSERT INTO expense_category (id, user_id, name) VALUES (?, ?, 'Rent')", id * 2 + 1, id);
+            // Food: 10.25 + 5.50, Rent: user id * 10
+            insertExpense(id, id * 2, 1025);
+            insertExpense(id, id * 2, 550);
+            insertExpense(id, id * 2 + 1, id * 1000);
+        }
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void chunkedParallelReportMatchesTheData() {
+        SpendingReport report = job(3, 4).generate();
+
+        long users = USERS - 1;
+        double rent = 10.0 * (USERS * (USERS + 1) / 2 - 13);
+        assertThat(report.users()).isEqualTo(users);
+        assertThat(report.expenses()).isEqualTo(users * 3);
+        assertThat(report.chunks()).isEqualTo(9);
+        assertThat(report.totalBudget()).isEqualTo(100.0 * (users - 1));
+        assertThat(report.totalSpent()).isCloseTo(15.75 * users + rent, within(1e-9));
+        assertThat(report.spentByCategory()).containsExactly(
+                entry("Rent", rent),
+                entry("Food", 15.75 * users));
+
+        // Spend is 15.75 + 10 * id, over the budget of 100 from id 9 on; 13 does not exist
+        assertThat(report.usersOverBudget()).isEqualTo(USERS - 9);
+        assertThat(report.topOverBudget()).hasSize(5);
+        assertThat(report.topOverBudget().get(0).userId()).isEqualTo(25);
+        assertThat(report.topOverBudget().get(0).spent()).isCloseTo(265.75, within(1e-9));
+        assertThat(report.topOverBudget()).noneMatch(u -> u.userId() == 7);
+    }
+
+    @Test
+    void resultDoesNotDependOnChunkingOrParallelism() {
+        SpendingReport sequential = job(1000, 1).generate();
+        SpendingReport parallel = job(2, 8).generate();
+
+        assertThat(sequential.chunks()).isEqualTo(1);
+        assertThat(parallel.totalSpent()).isCloseTo(sequential.totalSpent(), within(1e-9));
+        assertThat(parallel.spentByCategory()).isEqualTo(sequential.spentByCategory());
+        assertThat(parallel.usersOverBudget()).isEqualTo(sequential.usersOverBudget());
+        assertThat(parallel.topOverBudget()).isEqualTo(sequential.topOverBudget());
+    }
+
+    @Test
+    void includesArchivedExpenses() {
+        SpendingReport before = job(4, 2).generate();
+        // Each user's Food expenses are old enough to archive
+        jdbcTemplate.update("UPDATE expense SET created_at = TIMESTAMP '2020-01-01 00:00:00' WHERE MOD(category_id, 2) = 0");
+        ExpenseArchiver archiver = new ExpenseArchiver(dataSource, new DataSourceTransactionManager(dataSource),
+                new ExpenseArchive(archiveDir.toString(), 100), Duration.ofDays(1), userId -> { });
+        assertThat(archiver.archiveOlderThan(Instant.parse("2021-01-01T00:00:00Z"))).isEqualTo((USERS - 1) * 2);
+
+        SpendingReport after = job(4, 2).generate();
+
+        assertThat(after.expenses()).isEqualTo(before.expenses());
+        assertThat(after.totalSpent()).isCloseTo(before.totalSpent(), within(1e-9));
+        assertThat(after.spentByCategory()).isEqualTo(before.spentByCategory());
+        assertThat(after.topOverBudget()).isEqualTo(before.topOverBudget());
+    }
+
+    @Test
+    void writesTheReportToTheOutputDirectory() throws Exception {
+        Path written = job(10, 2).run();
+
+        assertThat(written.getParent()).isEqualTo(outputDir);
+        assertThat(written.getFileName().toString()).matches("spending-report-\\d{4}-\\d{2}-\\d{2}\\.json");
+        try (var files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(written);
+        }
+        JsonNode json = objectMapper.readTree(written.toFile());
+        assertThat(json.get("users").asLong()).isEqualTo(USERS - 1);
+        assertThat(json.get("generatedAt").isTextual()).isTrue();
+    }
+
+    private SpendingReportJob job(int chunkSize, int parallelism) {
+        return new SpendingReportJob(dataSource, new DataSourceTransactionManager(dataSource), objectMapper,
+                new ExpenseArchive(archiveDir.toString(), 100), parallelism, chunkSize, 100, 5, outputDir);
+    }
+
+    private void insertExpense(long userId, long categoryId, long amountMinor) {
+        jdbcTemplate.update("INSERT INTO expense (name, category_id, amount_minor, user_id) VALUES ('e', ?, ?, ?)",
+                categoryId, amountMinor, userId);
+    }
+}
@@ -0,0 +1,35 @@
+package com.budgetmanager.backend.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaselineMigrationTests {
+
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @AfterEach
+    void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void baselinedHibernateSchemaGetsEveryLaterColumn() {
+        // A database built by ddl-auto=update has the V1 tables but no Flyway history
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        jdbcTemplate.execute("DROP TABLE \"flyway_schema_history\"");
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT column_name FROM information_schema.columns WHERE table_name = '_user'",
+                String.class)).contains("token_version", "version", "archived_segments");
+    }
+}
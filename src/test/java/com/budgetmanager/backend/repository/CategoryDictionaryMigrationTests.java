@@ -0,0 +1,43 @@
+package com.budgetmanager.backend.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryDictionaryMigrationTests {
+
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @AfterEach
+    void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void backfillsCategoryIdsAndMinorUnitsFromExistingRows() {
+        migrate("3");
+        jdbcTemplate.update("INSERT INTO _user (id, username, password, budget, email) VALUES (1, 'a', 'x', 0, 'a@x'), (2, 'b', 'x', 0, 'b@x')");
+        jdbcTemplate.update("INSERT INTO expense (name, category, amount, user_id) VALUES "
+                + "('Lunch', 'Food', 12.1, 1), ('Dinner', 'Food', 20.2, 1), ('Bus', 'Travel', 0.3, 1), ('Snack', 'Food', 1.99, 2)");
+
+        migrate("latest");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_category", Integer.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT SUM(e.amount_minor) FROM expense e JOIN expense_category c ON c.id = e.category_id "
+                        + "WHERE c.user_id = e.user_id GROUP BY e.user_id, c.name ORDER BY e.user_id, c.name", Long.class))
+                .containsExactly(3230L, 30L, 199L);
+    }
+
+    private void migrate(String target) {
+        Flyway.configure().dataSource(dataSource).target(target).load().migrate();
+    }
+}
@@ -0,0 +1,88 @@
+package com.budgetmanager.backend.repository;
+
+import com.budgetmanager.backend.StatementRecorder;
+import com.budgetmanager.backend.analytics.ExpenseColumnsLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the SQL the expense listing and analytics paths actually issue is planned against
+ * the expense indexes once Flyway has built the schema.
+ */
+@SpringBootTest
+class ExpenseQueryIndexTests {
+
+    @TestConfiguration
+    static class RecordingConfig {
+        @Bean
+        static BeanPostProcessor statementRecorderPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                            ? new StatementRecorder(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseColumnsLoader columnsLoader;
+
+    private StatementRecorder recorder;
+
+    @BeforeEach
+    void findRecorder() throws Exception {
+        recorder = dataSource.unwrap(StatementRecorder.class);
+    }
+
+    @Test
+    void listingUsesTheCoveringUserIndex() {
+        recorder.clear();
+        expenseRepository.findAllByUserId(1L);
+
+        assertThat(explain(expenseQuery(recorder.statements()))).containsIgnoringCase("idx_expense_user_listing");
+    }
+
+    @Test
+    void analyticsColumnsUseTheCategoryIndex() {
+        recorder.clear();
+        columnsLoader.load(1L);
+
+        assertThat(explain(expenseQuery(recorder.statements()))).containsIgnoringCase("idx_expense_user_category_amount");
+    }
+
+    // The one recorded statement that reads the expense table
+    private static String expenseQuery(List<String> statements) {
+        List<String> reads = statements.stream()
+                .filter(sql -> sql.toLowerCase().matches("(?s)select .* from expense \\w*\\s*(join|where).*"))
+                .toList();
+        assertThat(reads).hasSize(1);
+        return reads.get(0);
+    }
+
+    // Every statement here has a single user id parameter
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, 1L));
+    }
+}
@@ -0,0 +1,102 @@
+package com.budgetmanager.backend.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of results from one user's index of 100k expenses, for a common word, a two-word
+ * query, a two-letter prefix (the widest posting lists) and a miss, plus the cost of building
+ * the index from scratch (what a user's first search pays on top of loading the rows).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ExpenseSearch
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpenseSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "coffee", "tea", "lunch", "dinner", "breakfast", "groceries", "market", "bakery", "pizza", "sushi",
+            "bus", "train", "taxi", "fuel", "parking", "toll", "flight", "hotel", "rent", "electricity",
+            "water", "internet", "phone", "gym", "cinema", "concert", "books", "stationery", "medicine", "doctor",
+            "shoes", "jacket", "gift", "flowers", "repair", "plumber", "laundry", "haircut", "insurance", "tax",
+            "blue", "bottle", "corner", "central", "green", "river", "station", "city", "north", "village"
+    };
+    private static final String[] CATEGORIES = {
+            "Food", "Travel", "Housing", "Utilities", "Health", "Shopping", "Entertainment", "Education", "Services", "Misc"
+    };
+
+    @Param({"100000"})
+    public int expenses;
+
+    private String[] names;
+    private String[] categories;
+    private ExpenseSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        names = new String[expenses];
+        categories = new String[expenses];
+        for (int i = 0; i < expenses; i++) {
+            int words = 1 + random.nextInt(3);
+            StringBuilder name = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                name.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+            }
+            names[i] = name.toString();
+            categories[i] = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        }
+        index = build();
+    }
+
+    private ExpenseSearchIndex build() {
+        ExpenseSearchIndex built = new ExpenseSearchIndex();
+        for (int i = 0; i < expenses; i++) {
+            built.add(i + 1, names[i], categories[i], 10);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public ExpenseSearchIndex.Page commonWord() {
+        return index.search("coffee", 0, 20);
+    }
+
+    @Benchmark
+    public ExpenseSearchIndex.Page twoWords() {
+        return index.search("blue bottle", 0, 20);
+    }
+
+    @Benchmark
+    public ExpenseSearchIndex.Page shortPrefix() {
+        return index.search("co", 0, 20);
+    }
+
+    @Benchmark
+    public ExpenseSearchIndex.Page miss() {
+        return index.search("xylophone", 0, 20);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExpenseSearchIndex buildIndex() {
+        return build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.budgetmanager.backend.search;
+
+import com.budgetmanager.backend.model.Expense;
+import com.budgetmanager.backend.service.ExpenseService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExpenseSearchIndexTests {
+
+    @Test
+    void ranksWholeWordsOverPrefixesOverSubstringsOverCategories() {
+        ExpenseSearchIndex index = new ExpenseSearchIndex();
+        index.add(1, "Coffee beans", "Groceries", 12);
+        index.add(2, "Tea", "Drinks", 3);
+        index.add(3, "Teapot", "Kitchen", 25);
+        index.add(4, "Steam cleaning", "Home", 40);
+        index.add(5, "Lunch", "Tea room", 9);
+
+        assertThat(names(index.search("tea", 0, 10))).containsExactly("Tea", "Teapot", "Steam cleaning", "Lunch");
+    }
+
+    @Test
+    void shortTermsMatchWordPrefixesAndAllTermsMustMatch() {
+        ExpenseSearchIndex index = new ExpenseSearchIndex();
+        index.add(1, "Bus ticket", "Travel", 2);
+        index.add(2, "Train ticket", "Travel", 30);
+        index.add(3, "Abuse fee", "Misc", 1);
+
+        assertThat(names(index.search("bu", 0, 10))).containsExactly("Bus ticket");
+        assertThat(names(index.search("TICKET tr", 0, 10))).containsExactly("Train ticket", "Bus ticket");
+        assertThat(index.search("ticket plane", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void pagesNewestFirstWithinEqualScoresAndForgetsDeletedExpenses() {
+        ExpenseSearchIndex index = new ExpenseSearchIndex();
+        LongStream.rangeClosed(1, 25).forEach(id -> index.add(id, "Parking " + id, "Car", 5));
+
+        ExpenseSearchIndex.Page second = index.search("parking", 1, 10);
+        assertThat(second.total()).isEqualTo(25);
+        assertThat(second.hits()).extracting(ExpenseSearchIndex.Hit::id).startsWith(15L).endsWith(6L);
+        assertThat(index.search("parking", 3, 10).hits()).isEmpty();
+        assertThat(index.search("parking", Integer.MAX_VALUE, 100).total()).isEqualTo(25);
+
+        // Deleting most rows also compacts the index
+        LongStream.rangeClosed(1, 20).forEach(index::remove);
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.search("parking", 0, 10).hits()).extracting(ExpenseSearchIndex.Hit::id)
+                .containsExactly(25L, 24L, 23L, 22L, 21L);
+    }
+
+    @Test
+    void buildsLazilyAppliesWritesAndEvictsLeastRecentlyUsedUsers() {
+        ExpenseService expenseService = mock(ExpenseService.class);
+        when(expenseService.findAllByUserId(anyLong())).thenAnswer(invocation -> {
+            long userId = invocation.getArgument(0);
+            return LongStream.rangeClosed(1, 1000)
+                    .mapToObj(i -> Expense.builder().id(userId * 10_000 + i).name("Snack " + i).category("Food").amount(1).build())
+                    .toList();
+        });
+        // Room for about two users' indexes
+        ExpenseSearchService service = new ExpenseSearchService(expenseService, 1, 300);
+
+        service.onExpenseAdded(1L, expense(99, "Ignored until built"));
+        assertThat(service.search(1L, "snack", 0, 1).total()).isEqualTo(1000);
+        service.onExpenseAdded(1L, expense(100_001, "Snack bar"));
+        service.onExpenseDeleted(1L, 10_001L);
+        assertThat(service.search(1L, "snack", 0, 1).hits()).extracting(ExpenseSearchIndex.Hit::name).containsExactly("Snack bar");
+        assertThat(service.search(1L, "snack", 0, 1).total()).isEqualTo(1000);
+        assertThat(service.search(1L, "ignored", 0, 1).total()).isZero();
+        verify(expenseService, times(1)).findAllByUserId(1L);
+
+        service.search(2L, "snack", 0, 1);
+        service.search(1L, "snack", 0, 1);
+        service.search(3L, "snack", 0, 1);
+        service.search(1L, "snack", 0, 1);
+        verify(expenseService, times(1)).findAllByUserId(1L);
+
+        // User 2 was least recently used when user 3 arrived
+        service.search(2L, "snack", 0, 1);
+        verify(expenseService, times(2)).findAllByUserId(2L);
+    }
+
+    private static Expense expense(long id, String name) {
+        return Expense.builder().id(id).name(name).category("Food").amount(1).build();
+    }
+
+    private static List<String> names(ExpenseSearchIndex.Page page) {
+        return page.hits().stream().map(ExpenseSearchIndex.Hit::name).toList();
+    }
+}
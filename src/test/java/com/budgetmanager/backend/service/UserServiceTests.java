@@ -0,0 +1,68 @@
+package com.budgetmanager.backend.service;
+
+import com.budgetmanager.backend.dto.UpdateProfileRequest;
+import com.budgetmanager.backend.model.User;
+import com.budgetmanager.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class UserServiceTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void updatesOnlyTheGivenColumnsAndBumpsTheVersion() {
+        User user = user("frank");
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setVillage("Riverside");
+
+        userService.updateProfile(user, request);
+        userService.updateBudget(user, 250);
+
+        User stored = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(stored.getVillage()).isEqualTo("Riverside");
+        assertThat(stored.getFullName()).isEqualTo("Frank");
+        assertThat(stored.getBudget()).isEqualTo(250);
+        assertThat(stored.getVersion()).isEqualTo(2).isEqualTo(user.getVersion());
+    }
+
+    @Test
+    void rejectsAnUpdateBasedOnAStaleCopy() {
+        User first = user("grace");
+        User second = userRepository.findById(first.getId()).orElseThrow();
+
+        userService.updateBudget(first, 100);
+
+        assertThatThrownBy(() -> userService.updateBudget(second, 999))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(userRepository.findById(first.getId()).orElseThrow().getBudget()).isEqualTo(100);
+    }
+
+    @Test
+    void detachedUsersCompareAndPrintWithoutLoadingExpenses() {
+        User user = user("heidi");
+        User loaded = userRepository.findByUsername("heidi").orElseThrow();
+
+        assertThat(loaded).isEqualTo(user).hasSameHashCodeAs(user);
+        assertThat(loaded.toString()).contains("heidi").doesNotContain("expenses", loaded.getPassword());
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .password("hash-" + username)
+                .fullName(username.substring(0, 1).toUpperCase() + username.substring(1))
+                .email(username + "@example.com")
+                .build());
+    }
+}
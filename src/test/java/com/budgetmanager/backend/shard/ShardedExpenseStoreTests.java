@@ -0,0 +1,149 @@
+package com.budgetmanager.backend.shard;
+
+import com.budgetmanager.backend.model.Expense;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedExpenseStoreTests {
+
+    private static final int USERS = 60;
+
+    private final List<DataSource> databases = new ArrayList<>();
+
+    @BeforeEach
+    void createDatabases() {
+        for (int i = 0; i < 3; i++) {
+            databases.add(new DriverManagerDataSource("jdbc:h2:mem:shard_" + i + ";MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        }
+    }
+
+    @AfterEach
+    void dropDatabases() {
+        databases.forEach(db -> new JdbcTemplate(db).execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    void routesEachUsersExpensesToOneShard() {
+        ShardedExpenseStore store = store(2, 0);
+        LongStream.rangeClosed(1, USERS).forEach(userId -> {
+            store.save(expense("Lunch " + userId, 10), userId);
+            store.save(expense("Bus " + userId, 2.5), userId);
+        });
+
+        for (long userId = 1; userId <= USERS; userId++) {
+            List<Expense> expenses = store.findAllByUserId(userId);
+            assertThat(expenses).extracting(Expense::getName).containsExactly("Lunch " + userId, "Bus " + userId);
+            int home = store.router().shardFor(userId);
+            assertThat(rowsOnShard(home, userId)).isEqualTo(2);
+            assertThat(rowsOnShard(1 - home, userId)).isZero();
+            assertThat(store.findRecent(userId, 1)).extracting(Expense::getName).containsExactly("Bus " + userId);
+        }
+        assertThat(rowsOnShard(0)).isPositive();
+        assertThat(rowsOnShard(1)).isPositive();
+    }
+
+    @Test
+    void deletesOnlyWithinTheOwnersRows() {
+        ShardedExpenseStore store = store(2, 0);
+        Expense saved = store.save(expense("Rent", 500), 7L);
+
+        assertThat(store.delete(saved.getId(), 8L)).isEqualTo(ShardedExpenseStore.DeleteResult.NOT_OWNER);
+        assertThat(store.findAllByUserId(7L)).hasSize(1);
+        assertThat(store.delete(saved.getId(), 7L)).isEqualTo(ShardedExpenseStore.DeleteResult.DELETED);
+        assertThat(store.findAllByUserId(7L)).isEmpty();
+        assertThat(store.delete(saved.getId(), 7L)).isEqualTo(ShardedExpenseStore.DeleteResult.NOT_FOUND);
+    }
+
+    @Test
+    void addingAShardMovesOnlyRelocatedUsersAndStaysReadableThroughout() {
+        ShardedExpenseStore before = store(2, 0);
+        LongStream.rangeClosed(1, USERS).forEach(userId -> before.save(expense("Coffee " + userId, 3), userId));
+
+        // Third shard added; rebalance pending
+        ShardedExpenseStore during = store(3, 2);
+        long relocated = LongStream.rangeClosed(1, USERS).filter(id -> during.router().previousShardFor(id) >= 0).count();
+        assertThat(relocated).isPositive().isLessThan(USERS / 2);
+
+        long newcomer = LongStream.rangeClosed(1, USERS).filter(id -> during.router().previousShardFor(id) >= 0).findFirst().orElseThrow();
+        during.save(expense("Written mid-rebalance", 1), newcomer);
+        assertThat(during.findAllByUserId(newcomer)).hasSize(2);
+        assertThat(during.findRecent(newcomer, 1)).extracting(Expense::getName).containsExactly("Written mid-rebalance");
+
+        long moved = new ExpenseShardRebalancer(during).rebalance();
+        assertThat(moved).isEqualTo(relocated);
+
+        ShardedExpenseStore after = store(3, 0);
+        for (long userId = 1; userId <= USERS; userId++) {
+            assertThat(after.findAllByUserId(userId)).extracting(Expense::getName).contains("Coffee " + userId);
+            assertThat(rowsOnShard(after.router().shardFor(userId), userId))
+                    .isEqualTo(userId == newcomer ? 2 : 1);
+        }
+        assertThat(rowsOnShard(0) + rowsOnShard(1) + rowsOnShard(2)).isEqualTo(USERS + 1);
+    }
+
+    @Test
+    void backfillMovesMainTableRowsOntoTheirShards() {
+        DataSource main = new DriverManagerDataSource("jdbc:h2:mem:unsharded;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(main).load().migrate();
+        JdbcTemplate mainJdbc = new JdbcTemplate(main);
+        try {
+            for (long userId = 1; userId <= 3; userId++) {
+                mainJdbc.update("INSERT INTO _user (id, username, password, budget, email) VALUES (?, ?, 'x', 0, ?)",
+                        userId, "user" + userId, "user" + userId + "@x");
+                mainJdbc.update("INSERT INTO expense_category (id, user_id, name) VALUES (?, ?, 'Food')", userId, userId);
+                mainJdbc.update("INSERT INTO expense (id, name, category_id, amount_minor, user_id) VALUES (?, 'Lunch', ?, 1250, ?)",
+                        userId * 100, userId, userId);
+            }
+            ShardedExpenseStore store = store(2, 0);
+            // Left over from a run that stopped after copying user 1
+            new JdbcTemplate(databases.get(store.router().shardFor(1)))
+                    .update(ShardedExpenseStore.INSERT, 1L, 100L, "Lunch", "Food", 12.5);
+
+            long moved = new ExpenseShardRebalancer(store).backfill(mainJdbc, new DataSourceTransactionManager(main));
+
+            assertThat(moved).isEqualTo(3);
+            assertThat(mainJdbc.queryForObject("SELECT COUNT(*) FROM expense", Long.class)).isZero();
+            for (long userId = 1; userId <= 3; userId++) {
+                assertThat(store.findAllByUserId(userId)).singleElement().satisfies(e -> {
+                    assertThat(e.getName()).isEqualTo("Lunch");
+                    assertThat(e.getCategory()).isEqualTo("Food");
+                    assertThat(e.getAmount()).isEqualTo(12.5);
+                });
+            }
+            assertThat(store.findAllByUserId(2).get(0).getId()).isEqualTo(200L);
+        } finally {
+            mainJdbc.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    private ShardedExpenseStore store(int shards, int previousShards) {
+        ShardedExpenseStore store = new ShardedExpenseStore(databases.subList(0, shards), new ShardRouter(shards, previousShards));
+        store.migrateSchema();
+        return store;
+    }
+
+    private long rowsOnShard(int shard) {
+        return new JdbcTemplate(databases.get(shard)).queryForObject("SELECT COUNT(*) FROM sharded_expense", Long.class);
+    }
+
+    private long rowsOnShard(int shard, long userId) {
+        return new JdbcTemplate(databases.get(shard))
+                .queryForObject("SELECT COUNT(*) FROM sharded_expense WHERE user_id = ?", Long.class, userId);
+    }
+
+    private static Expense expense(String name, double amount) {
+        return Expense.builder().name(name).category("General").amount(amount).build();
+    }
+}